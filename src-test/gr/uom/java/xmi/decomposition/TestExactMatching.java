@@ -0,0 +1,254 @@
+package gr.uom.java.xmi.decomposition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import gr.uom.java.xmi.LocationInfoProvider;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.diff.UMLClassDiff;
+import gr.uom.java.xmi.diff.UMLModelDiff;
+
+public class TestExactMatching {
+
+	private static final String FILE_PATH = "src/example/Foo.java";
+
+	private static final String BEFORE = String.join("\n",
+			"package example;",
+			"",
+			"import java.util.List;",
+			"",
+			"public class Foo {",
+			"	private int count;",
+			"",
+			"	public int unchanged(List<String> values) {",
+			"		int result = 0;",
+			"		for(String value : values) {",
+			"			count++;",
+			"			if(value.isEmpty()) {",
+			"				count++;",
+			"				continue;",
+			"			}",
+			"			result += value.length();",
+			"		}",
+			"		count++;",
+			"		return result;",
+			"	}",
+			"",
+			"	public int nested(List<String> values) {",
+			"		int result = 0;",
+			"		count++;",
+			"		for(String value : values) {",
+			"			result += value.length();",
+			"			count++;",
+			"		}",
+			"		for(String value : values) {",
+			"			result += value.length();",
+			"		}",
+			"		return result;",
+			"	}",
+			"",
+			"	public int returned(int a, int b) {",
+			"		count++;",
+			"		return Math.max(a, b);",
+			"	}",
+			"",
+			"	public void shrinking(List<String> values) {",
+			"		count++;",
+			"		count++;",
+			"		values.clear();",
+			"		if(values.isEmpty()) {",
+			"			count++;",
+			"			values.add(\"a\");",
+			"		}",
+			"		if(values.isEmpty()) {",
+			"			values.add(\"b\");",
+			"		}",
+			"		values.add(\"c\");",
+			"	}",
+			"",
+			"	public boolean empty(List<String> values) {",
+			"		return values.isEmpty();",
+			"	}",
+			"}",
+			"");
+
+	private static final String AFTER = String.join("\n",
+			"package example;",
+			"",
+			"import java.util.List;",
+			"",
+			"public class Foo {",
+			"	private int count;",
+			"",
+			"	public int unchanged(List<String> values) {",
+			"		int result = 0;",
+			"		for(String value : values) {",
+			"			count++;",
+			"			if(value.isEmpty()) {",
+			"				count++;",
+			"				continue;",
+			"			}",
+			"			result += value.length();",
+			"		}",
+			"		count++;",
+			"		return result;",
+			"	}",
+			"",
+			"	public int nested(List<String> values) {",
+			"		int result = 0;",
+			"		if(values != null) {",
+			"			count++;",
+			"			for(String value : values) {",
+			"				result += value.length();",
+			"				count++;",
+			"			}",
+			"		}",
+			"		for(String value : values) {",
+			"			count++;",
+			"			result += value.length();",
+			"		}",
+			"		count++;",
+			"		return result;",
+			"	}",
+			"",
+			"	public int returned(int a, int b) {",
+			"		Math.max(a, b);",
+			"		count++;",
+			"		return count;",
+			"	}",
+			"",
+			"	public void shrinking(List<String> values) {",
+			"		count++;",
+			"		if(values.isEmpty()) {",
+			"			values.add(\"a\");",
+			"		}",
+			"		values.add(\"c\");",
+			"	}",
+			"",
+			"	public boolean empty(List<String> values) {",
+			"		return values.isEmpty();",
+			"	}",
+			"",
+			"	public int sum(List<String> values) {",
+			"		int total = 0;",
+			"		for(String value : values) {",
+			"			total += value.length();",
+			"		}",
+			"		return total;",
+			"	}",
+			"}",
+			"");
+
+	@Test
+	public void testCandidatesAreTheFragmentsComparedEqual() throws Exception {
+		List<AbstractCodeFragment> fragments1 = fragments(BEFORE);
+		List<AbstractCodeFragment> fragments2 = fragments(AFTER);
+		//the argumentized strings of the statements of sum are the strings of the statements using result
+		Map<String, String> parameterToArgumentMap = new LinkedHashMap<String, String>();
+		parameterToArgumentMap.put("total", "result");
+		for(AbstractCodeFragment fragment : fragments2) {
+			fragment.replaceParametersWithArguments(parameterToArgumentMap);
+		}
+		FragmentStringIndex<AbstractCodeFragment> index = new FragmentStringIndex<AbstractCodeFragment>(fragments2);
+		List<AbstractCodeFragment> remaining = new ArrayList<AbstractCodeFragment>(fragments2);
+		int comparedEqual = 0;
+		for(AbstractCodeFragment fragment1 : fragments1) {
+			List<AbstractCodeFragment> expected = new ArrayList<AbstractCodeFragment>();
+			for(AbstractCodeFragment fragment2 : remaining) {
+				if(comparedEqual(fragment1, fragment2)) {
+					expected.add(fragment2);
+				}
+			}
+			List<AbstractCodeFragment> actual = new ArrayList<AbstractCodeFragment>();
+			for(AbstractCodeFragment fragment2 : index.candidates(fragment1)) {
+				if(comparedEqual(fragment1, fragment2)) {
+					actual.add(fragment2);
+				}
+			}
+			assertEquals(fragment1.getString(), locations(expected), locations(actual));
+			//the first fragment compared equal is mapped, as the exact matching passes remove the mapped fragments
+			if(!expected.isEmpty()) {
+				comparedEqual++;
+				remaining.remove(expected.get(0));
+				index.remove(expected.get(0));
+			}
+		}
+		assertTrue(comparedEqual > 10);
+	}
+
+	@Test
+	public void testIdenticalBodiesMapEveryLeafInOrder() throws Exception {
+		UMLModel model1 = new UMLModelASTReader(Collections.singletonMap(FILE_PATH, BEFORE), Collections.<String>emptySet()).getUmlModel();
+		UMLModel model2 = new UMLModelASTReader(Collections.singletonMap(FILE_PATH, AFTER), Collections.<String>emptySet()).getUmlModel();
+		UMLClass class1 = model1.getClassList().get(0);
+		UMLClassDiff classDiff = new UMLClassDiff(class1, model2.getClass(class1), new UMLModelDiff());
+		classDiff.process();
+		UMLOperationBodyMapper mapper = classDiff.getOperationBodyMapperList().get(0);
+		assertEquals("unchanged", mapper.getOperation1().getName());
+		List<StatementObject> leaves1 = mapper.getOperation1().getBody().getCompositeStatement().getLeaves();
+		List<StatementObject> leaves2 = mapper.getOperation2().getBody().getCompositeStatement().getLeaves();
+		List<String> expected = new ArrayList<String>();
+		for(int i = 0; i < leaves1.size(); i++) {
+			expected.add(location(leaves1.get(i)) + " -> " + location(leaves2.get(i)));
+		}
+		List<String> actual = new ArrayList<String>();
+		for(AbstractCodeMapping mapping : mapper.getMappings()) {
+			if(mapping instanceof LeafMapping) {
+				actual.add(location(mapping.getFragment1()) + " -> " + location(mapping.getFragment2()));
+			}
+		}
+		assertEquals(expected, actual);
+		assertTrue(mapper.getNonMappedLeavesT1().isEmpty() && mapper.getNonMappedLeavesT2().isEmpty());
+		assertTrue(mapper.getNonMappedInnerNodesT1().isEmpty() && mapper.getNonMappedInnerNodesT2().isEmpty());
+	}
+
+	//the condition of the exact matching passes, for the leaves and the inner nodes
+	private static boolean comparedEqual(AbstractCodeFragment fragment1, AbstractCodeFragment fragment2) {
+		return fragment1.getString().equals(fragment2.getString()) || preprocessInput(fragment1, fragment2).equals(preprocessInput(fragment2, fragment1));
+	}
+
+	private static String preprocessInput(AbstractCodeFragment fragment1, AbstractCodeFragment fragment2) {
+		if(fragment1 instanceof StatementObject && fragment2 instanceof AbstractExpression) {
+			return fragment1.getArgumentizedStringWithoutReturn();
+		}
+		return fragment1.getArgumentizedString();
+	}
+
+	//the leaves, inner nodes and expressions of all operations, in the order of the operations
+	private static List<AbstractCodeFragment> fragments(String source) throws Exception {
+		UMLModel model = new UMLModelASTReader(Collections.singletonMap(FILE_PATH, source), Collections.<String>emptySet()).getUmlModel();
+		List<AbstractCodeFragment> fragments = new ArrayList<AbstractCodeFragment>();
+		for(UMLClass umlClass : model.getClassList()) {
+			for(UMLOperation operation : umlClass.getOperations()) {
+				CompositeStatementObject composite = operation.getBody().getCompositeStatement();
+				fragments.addAll(composite.getLeaves());
+				fragments.addAll(composite.getInnerNodes());
+				fragments.addAll(composite.getExpressions());
+			}
+		}
+		return fragments;
+	}
+
+	private static String location(LocationInfoProvider fragment) {
+		return fragment.getLocationInfo().getStartOffset() + "-" + fragment.getLocationInfo().getEndOffset();
+	}
+
+	private static String locations(List<? extends LocationInfoProvider> fragments) {
+		List<String> locations = new ArrayList<String>();
+		for(LocationInfoProvider fragment : fragments) {
+			locations.add(location(fragment));
+		}
+		return locations.toString();
+	}
+}
@@ -0,0 +1,113 @@
+package gr.uom.java.xmi.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+
+public class TestIsSubclassOf {
+
+	private static final Map<String, String> BEFORE = new LinkedHashMap<String, String>();
+	private static final Map<String, String> AFTER = new LinkedHashMap<String, String>();
+
+	static {
+		//every common class gets an attribute, so that its class diff is not empty
+		common("Drawable", "public interface Drawable", "public interface Drawable");
+		common("Shape", "public abstract class Shape implements Drawable", "public abstract class Shape implements Drawable");
+		common("Circle", "public class Circle extends Shape", "public class Circle extends Shape");
+		//the superclass of Square is replaced with an added class, and Label gets an added superclass
+		common("Square", "public class Square extends Shape", "public class Square extends Polygon");
+		common("Label", "public class Label", "public class Label extends Widget");
+		common("Canvas", "public class Canvas implements Drawable, Comparable<Canvas>", "public class Canvas implements Drawable, Comparable<Canvas>, java.io.Serializable");
+		//the parser does not reject a cycle of superclasses
+		common("Loop1", "public class Loop1 extends Loop2", "public class Loop1 extends Loop2");
+		common("Loop2", "public class Loop2 extends Loop1 implements Drawable", "public class Loop2 extends Loop1 implements Drawable");
+		AFTER.put(path("Polygon"), source("public class Polygon extends Shape", "int sides;"));
+		AFTER.put(path("Widget"), source("public class Widget implements Drawable", "boolean visible;"));
+		BEFORE.put(path("Legacy"), source("public class Legacy extends Shape implements Drawable", "String legacyName;"));
+	}
+
+	private static final List<String> TYPES = Arrays.asList("example.Drawable", "example.Shape", "example.Circle", "example.Square", "example.Label",
+			"example.Canvas", "example.Loop1", "example.Loop2", "example.Polygon", "example.Widget", "example.Legacy", "example.Button", "example.Gauge", "example.Slider",
+			"Shape", "Drawable", "Comparable", "java.io.Serializable", "Serializable", "example.Unknown");
+
+	@Test
+	public void testSameAnswersAsTheWalk() throws Exception {
+		UMLModelDiff modelDiff = model(BEFORE).diff(model(AFTER));
+		assertSameAnswersAsTheWalk(modelDiff);
+		//the second time, the answers come from the memoized supertypes
+		assertSameAnswersAsTheWalk(modelDiff);
+		assertTrue(modelDiff.isSubclassOf("example.Circle", "example.Shape"));
+		assertTrue(modelDiff.isSubclassOf("example.Square", "example.Shape"));
+		assertTrue(modelDiff.isSubclassOf("example.Label", "example.Widget"));
+		assertTrue(modelDiff.isSubclassOf("example.Polygon", "example.Shape"));
+		assertTrue(modelDiff.isSubclassOf("example.Legacy", "example.Shape"));
+		assertTrue(modelDiff.isSubclassOf("example.Canvas", "java.io.Serializable"));
+		assertTrue(modelDiff.isSubclassOf("example.Loop2", "example.Drawable"));
+		assertFalse(modelDiff.isSubclassOf("example.Loop1", "example.Shape"));
+		assertFalse(modelDiff.isSubclassOf("example.Shape", "example.Circle"));
+	}
+
+	@Test
+	public void testSameAnswersAfterTheClassesChange() throws Exception {
+		UMLModelDiff modelDiff = model(BEFORE).diff(model(AFTER));
+		assertFalse(modelDiff.isSubclassOf("example.Button", "example.Widget"));
+		assertFalse(modelDiff.isSubclassOf("example.Gauge", "example.Shape"));
+		Map<String, String> added = new LinkedHashMap<String, String>();
+		added.put(path("Button"), source("public class Button extends Widget", "String text;"));
+		added.put(path("Gauge"), source("public class Gauge extends Circle", "double level;"));
+		UMLModel addedModel = model(added);
+		modelDiff.reportAddedClass(addedModel.getClassList().get(0));
+		modelDiff.reportRemovedClass(addedModel.getClassList().get(1));
+		assertTrue(modelDiff.isSubclassOf("example.Button", "example.Widget"));
+		assertTrue(modelDiff.isSubclassOf("example.Gauge", "example.Shape"));
+		assertSameAnswersAsTheWalk(modelDiff);
+
+		assertFalse(modelDiff.isSubclassOf("example.Slider", "example.Widget"));
+		UMLClass slider1 = model(Collections.singletonMap(path("Slider"), source("public class Slider", ""))).getClassList().get(0);
+		UMLClass slider2 = model(Collections.singletonMap(path("Slider"), source("public class Slider extends Widget", "int value;"))).getClassList().get(0);
+		UMLClassDiff classDiff = new UMLClassDiff(slider1, slider2, modelDiff);
+		classDiff.process();
+		modelDiff.addUMLClassDiff(classDiff);
+		assertTrue(modelDiff.isSubclassOf("example.Slider", "example.Widget"));
+		assertSameAnswersAsTheWalk(modelDiff);
+	}
+
+	//the class names, the simple names of some of them, and names of types that are not classes of the models
+	private static void assertSameAnswersAsTheWalk(UMLModelDiff modelDiff) {
+		for(String subclass : TYPES) {
+			for(String superclass : TYPES) {
+				assertEquals(subclass + " " + superclass, modelDiff.isSubclassOf(subclass, superclass, new LinkedHashSet<String>()), modelDiff.isSubclassOf(subclass, superclass));
+			}
+		}
+	}
+
+	private static UMLModel model(Map<String, String> contents) throws Exception {
+		return new UMLModelASTReader(contents, Collections.<String>emptySet()).getUmlModel();
+	}
+
+	private static void common(String name, String declarationBefore, String declarationAfter) {
+		BEFORE.put(path(name), source(declarationBefore, ""));
+		AFTER.put(path(name), source(declarationAfter, "int version = 1;"));
+	}
+
+	private static String path(String name) {
+		return "src/example/" + name + ".java";
+	}
+
+	private static String source(String declaration, String member) {
+		return "package example;\n\n" + declaration + " {\n\t" + member + "\n}\n";
+	}
+}
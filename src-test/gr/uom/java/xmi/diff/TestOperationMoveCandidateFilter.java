@@ -0,0 +1,187 @@
+package gr.uom.java.xmi.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringType;
+
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.UMLOperation;
+
+public class TestOperationMoveCandidateFilter {
+
+	private static final String A = "src/example/A.java";
+	private static final String B = "src/example/B.java";
+
+	private static final String A_BEFORE = String.join("\n",
+			"package example;",
+			"",
+			"public class A {",
+			"	public String keep(String text) {",
+			"		return text.trim();",
+			"	}",
+			"",
+			"	public int checksum(String text) {",
+			"		int sum = 0;",
+			"		for(char c : text.toCharArray()) {",
+			"			sum = 31 * sum + c;",
+			"		}",
+			"		return sum;",
+			"	}",
+			"}",
+			"");
+
+	private static final String A_AFTER = String.join("\n",
+			"package example;",
+			"",
+			"public class A {",
+			"	public String keep(String text) {",
+			"		return text.trim();",
+			"	}",
+			"}",
+			"");
+
+	private static final String B_BEFORE = String.join("\n",
+			"package example;",
+			"",
+			"import java.util.List;",
+			"",
+			"public class B {",
+			"	public int size(List<String> items) {",
+			"		return items.size();",
+			"	}",
+			"}",
+			"");
+
+	//checksum is moved among four added operations, and count shares more tokens with it than the others
+	private static final String B_AFTER = String.join("\n",
+			"package example;",
+			"",
+			"import java.util.List;",
+			"",
+			"public class B {",
+			"	public int size(List<String> items) {",
+			"		return items.size();",
+			"	}",
+			"",
+			"	public String greet(String name) {",
+			"		return \"Hello \" + name;",
+			"	}",
+			"",
+			"	public int count(String text) {",
+			"		int sum = 0;",
+			"		return sum + text.length();",
+			"	}",
+			"",
+			"	public int checksum(String text) {",
+			"		int sum = 0;",
+			"		for(char c : text.toCharArray()) {",
+			"			sum = 31 * sum + c;",
+			"		}",
+			"		return sum;",
+			"	}",
+			"",
+			"	public long now() {",
+			"		return System.currentTimeMillis();",
+			"	}",
+			"",
+			"	public double half(double value) {",
+			"		return value / 2;",
+			"	}",
+			"}",
+			"");
+
+	@Test
+	public void testMostSimilarCandidatesInOriginalOrder() throws Exception {
+		UMLOperation checksum = operation(model(A_BEFORE, B_BEFORE), "example.A", "checksum");
+		List<UMLOperation> operations = umlClass(model(A_AFTER, B_AFTER), "example.B").getOperations().subList(1, 6);
+		assertEquals("[greet, count, checksum, now, half]", names(operations));
+
+		OperationMoveCandidateFilter unlimited = new OperationMoveCandidateFilter(0);
+		assertSame(operations, unlimited.candidates(checksum, operations));
+		assertEquals(0, unlimited.getPrunedPairs());
+
+		OperationMoveCandidateFilter filter = new OperationMoveCandidateFilter(2);
+		assertEquals("[count, checksum]", names(filter.candidates(checksum, operations)));
+		assertEquals(3, filter.getPrunedPairs());
+		assertEquals("[checksum]", names(new OperationMoveCandidateFilter(1).candidates(checksum, operations)));
+		//the pruned pairs add up over the compared operations
+		filter.candidates(checksum, operations);
+		assertEquals(6, filter.getPrunedPairs());
+	}
+
+	@Test
+	public void testMoveSurvivesPruning() throws Exception {
+		UMLModelDiff unlimited = model(A_BEFORE, B_BEFORE).diff(model(A_AFTER, B_AFTER));
+		List<Refactoring> expected = unlimited.getRefactorings();
+		assertEquals(1, moveMethodCount(expected));
+		assertEquals(0, unlimited.getPrunedOperationPairs());
+
+		UMLModelDiff pruned = model(A_BEFORE, B_BEFORE).diff(model(A_AFTER, B_AFTER));
+		pruned.setMaximumOperationMoveCandidates(2);
+		assertEquals(descriptions(expected), descriptions(pruned.getRefactorings()));
+		//only the removed checksum is compared with the five added operations, since it is not compared again once it is moved
+		assertEquals(3, pruned.getPrunedOperationPairs());
+	}
+
+	private static UMLModel model(String a, String b) throws Exception {
+		Map<String, String> contents = new LinkedHashMap<String, String>();
+		contents.put(A, a);
+		contents.put(B, b);
+		return new UMLModelASTReader(contents, Collections.<String>emptySet()).getUmlModel();
+	}
+
+	private static UMLOperation operation(UMLModel model, String className, String name) {
+		for(UMLOperation operation : umlClass(model, className).getOperations()) {
+			if(operation.getName().equals(name)) {
+				return operation;
+			}
+		}
+		throw new AssertionError("No operation " + name + " in " + className);
+	}
+
+	private static UMLClass umlClass(UMLModel model, String className) {
+		for(UMLClass umlClass : model.getClassList()) {
+			if(umlClass.getName().equals(className)) {
+				return umlClass;
+			}
+		}
+		throw new AssertionError("No class " + className);
+	}
+
+	private static String names(List<UMLOperation> operations) {
+		List<String> names = new ArrayList<String>();
+		for(UMLOperation operation : operations) {
+			names.add(operation.getName());
+		}
+		return names.toString();
+	}
+
+	private static List<String> descriptions(List<Refactoring> refactorings) {
+		List<String> descriptions = new ArrayList<String>();
+		for(Refactoring refactoring : refactorings) {
+			descriptions.add(refactoring.toString());
+		}
+		return descriptions;
+	}
+
+	private static int moveMethodCount(List<Refactoring> refactorings) {
+		int count = 0;
+		for(Refactoring refactoring : refactorings) {
+			if(refactoring.getRefactoringType() == RefactoringType.MOVE_OPERATION && ((MoveOperationRefactoring)refactoring).getMovedOperation().getName().equals("checksum")) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
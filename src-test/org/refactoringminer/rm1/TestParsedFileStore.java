@@ -0,0 +1,234 @@
+package org.refactoringminer.rm1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.refactoringminer.test.TestRepository.lines;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.test.TestRepository;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+
+public class TestParsedFileStore {
+
+	private static final String FOO = "src/example/Foo.java";
+
+	private static final String FOO_CONTENTS = lines(
+			"package example;",
+			"",
+			"public class Foo {",
+			"	private int value;",
+			"",
+			"	public int twice() {",
+			"		return 2 * value;",
+			"	}",
+			"}");
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws Exception {
+		directory = Files.createTempDirectory("refactoringminer-store").toFile();
+	}
+
+	@After
+	public void deleteDirectory() throws Exception {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testSameRefactoringsWithAndWithoutStore() throws Exception {
+		try (TestRepository repository = new TestRepository()) {
+			Map<String, String> files = new LinkedHashMap<String, String>();
+			files.put(FOO, lines(
+					"package example;",
+					"",
+					"public class Foo {",
+					"	private int value;",
+					"",
+					"	public void run() {",
+					"		value++;",
+					"		System.out.println(\"value \" + value);",
+					"		value *= 2;",
+					"	}",
+					"}"));
+			files.put("src/example/Bar.java", FOO_CONTENTS.replace("Foo", "Bar"));
+			String firstCommitId = repository.commit("initial", files);
+			files.put(FOO, lines(
+					"package example;",
+					"",
+					"public class Foo {",
+					"	private int value;",
+					"",
+					"	public void run() {",
+					"		value++;",
+					"		log();",
+					"		value *= 2;",
+					"	}",
+					"",
+					"	private void log() {",
+					"		System.out.println(\"value \" + value);",
+					"	}",
+					"}"));
+			repository.commit("extract log", files);
+			files.put(FOO, files.get(FOO).replace("run()", "execute()"));
+			files.put("src/example/Bar.java", files.get("src/example/Bar.java").replace("twice", "doubled"));
+			String lastCommitId = repository.commit("rename run and twice", files);
+
+			GitHistoryRefactoringMinerImpl unstoredMiner = new GitHistoryRefactoringMinerImpl();
+			unstoredMiner.setParsedFileCacheSize(0);
+			Map<String, List<String>> unstored = detect(unstoredMiner, repository, firstCommitId, lastCommitId);
+			assertEquals(2, unstored.size());
+			//the first walk stores the parsed files, and the second one, with another miner, loads them
+			for (int i = 0; i < 2; i++) {
+				GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+				miner.setParsedFileCacheSize(0);
+				miner.setParsedFileStore(directory, 1 << 30);
+				assertEquals(unstored, detect(miner, repository, firstCommitId, lastCommitId));
+				assertFalse(storedFiles().isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testEvictionDownToThreeQuartersOfMaximumSize() throws Exception {
+		UMLModel fileModel = fileModel();
+		long length = storedLength(fileModel);
+		//four files fit, and the fifth one evicts the oldest ones until at most three quarters of the maximum size are used
+		ParsedFileStore store = new ParsedFileStore(directory, 4 * length + length / 2);
+		long time = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+		for (int i = 1; i <= 5; i++) {
+			store.store(FOO, blobId(i), fileModel);
+			if (i < 5) {
+				assertTrue(storedFile(blobId(i)).setLastModified(time + TimeUnit.MINUTES.toMillis(i)));
+			}
+		}
+		assertEquals(3, storedFiles().size());
+		assertNull(store.load(FOO, blobId(1)));
+		assertNull(store.load(FOO, blobId(2)));
+		for (int i = 3; i <= 5; i++) {
+			assertNotNull(store.load(FOO, blobId(i)));
+		}
+	}
+
+	@Test
+	public void testReplacedFileIsNotCountedTwice() throws Exception {
+		UMLModel fileModel = fileModel();
+		long length = storedLength(fileModel);
+		//a single file fits, but evicting would delete it, since three quarters of the maximum size are less than its length
+		ParsedFileStore store = new ParsedFileStore(directory, length + length / 4);
+		for (int i = 0; i < 3; i++) {
+			store.store(FOO, blobId(1), fileModel);
+		}
+		assertEquals(1, storedFiles().size());
+		assertNotNull(store.load(FOO, blobId(1)));
+	}
+
+	@Test
+	public void testUnusedVersionDirectoriesAreDeleted() throws Exception {
+		File storeDirectory = new File(directory, "parsed-files");
+		long now = System.currentTimeMillis();
+		File unusedVersion = versionDirectory(storeDirectory, blobId(1).getName(), now - TimeUnit.DAYS.toMillis(8));
+		File recentVersion = versionDirectory(storeDirectory, blobId(2).getName(), now - TimeUnit.DAYS.toMillis(1));
+		File otherDirectory = versionDirectory(storeDirectory, "other", now - TimeUnit.DAYS.toMillis(8));
+		ParsedFileStore store = new ParsedFileStore(directory, 1 << 20);
+		assertFalse(unusedVersion.exists());
+		//another process may still use the store of a recent version, and the directories not created by the store are left alone
+		assertTrue(recentVersion.exists());
+		assertTrue(otherDirectory.exists());
+		store.store(FOO, blobId(3), fileModel());
+		assertNotNull(store.load(FOO, blobId(3)));
+	}
+
+	@Test
+	public void testCorruptFileIsMissed() throws Exception {
+		ParsedFileStore store = new ParsedFileStore(directory, 1 << 20);
+		UMLModel fileModel = fileModel();
+		store.store(FOO, blobId(1), fileModel);
+		File file = storedFile(blobId(1));
+		FileUtils.writeByteArrayToFile(file, new byte[] {1, 2, 3});
+		assertNull(store.load(FOO, blobId(1)));
+		assertFalse(file.exists());
+		store.store(FOO, blobId(1), fileModel);
+		UMLModel loaded = store.load(FOO, blobId(1));
+		assertNotNull(loaded);
+		assertEquals(fileModel.getClassList().size(), loaded.getClassList().size());
+	}
+
+	private static Map<String, List<String>> detect(GitHistoryRefactoringMinerImpl miner, TestRepository repository, String firstCommitId, String lastCommitId) throws Exception {
+		Map<String, List<String>> refactorings = new LinkedHashMap<String, List<String>>();
+		miner.detectBetweenCommits(repository.getRepository(), firstCommitId, lastCommitId, new RefactoringHandler() {
+			@Override
+			public void handle(String commitId, List<Refactoring> refactoringsAtRevision) {
+				List<String> descriptions = new ArrayList<String>();
+				for (Refactoring refactoring : refactoringsAtRevision) {
+					descriptions.add(refactoring.toJSON());
+				}
+				refactorings.put(commitId, descriptions);
+			}
+		});
+		return refactorings;
+	}
+
+	private static UMLModel fileModel() throws Exception {
+		return new UMLModelASTReader(Collections.singletonMap(FOO, FOO_CONTENTS), Collections.<String>emptySet()).getUmlModel();
+	}
+
+	//the length of the file storing the given model, which is the same for every blob, since the file holds only the model
+	private static long storedLength(UMLModel fileModel) throws Exception {
+		File probeDirectory = Files.createTempDirectory("refactoringminer-store").toFile();
+		try {
+			new ParsedFileStore(probeDirectory, 1 << 20).store(FOO, blobId(1), fileModel);
+			return FileUtils.listFiles(probeDirectory, null, true).iterator().next().length();
+		}
+		finally {
+			FileUtils.deleteDirectory(probeDirectory);
+		}
+	}
+
+	private static ObjectId blobId(int i) {
+		return ObjectId.fromString(String.format("%040x", i));
+	}
+
+	private List<File> storedFiles() {
+		return new ArrayList<File>(FileUtils.listFiles(directory, null, true));
+	}
+
+	//the stored files are named after the blob, followed by the hash of the path
+	private File storedFile(ObjectId blobId) {
+		String blobName = blobId.getName();
+		for (File file : storedFiles()) {
+			if (file.getParentFile().getName().equals(blobName.substring(0, 2)) && file.getName().startsWith(blobName.substring(2) + "-")) {
+				return file;
+			}
+		}
+		throw new AssertionError("No stored file for blob " + blobName);
+	}
+
+	private static File versionDirectory(File storeDirectory, String name, long lastModified) throws Exception {
+		File versionDirectory = new File(storeDirectory, name);
+		File file = new File(new File(versionDirectory, "00"), "stored");
+		FileUtils.writeByteArrayToFile(file, new byte[] {1});
+		assertTrue(versionDirectory.setLastModified(lastModified));
+		return versionDirectory;
+	}
+}
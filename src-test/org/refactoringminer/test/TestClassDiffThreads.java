@@ -0,0 +1,178 @@
+package org.refactoringminer.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.refactoringminer.test.TestRepository.lines;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+
+public class TestClassDiffThreads {
+
+	private static final String SHAPE = "src/example/Shape.java";
+	private static final String CIRCLE = "src/example/Circle.java";
+	private static final String SQUARE = "src/example/Square.java";
+	private static final String CANVAS = "src/example/Canvas.java";
+	private static final String RENDERER = "src/example/Renderer.java";
+
+	private static TestRepository repository;
+	private static String firstCommitId;
+	private static String lastCommitId;
+
+	@BeforeClass
+	public static void createHistory() throws Exception {
+		repository = new TestRepository();
+		Map<String, String> files = new LinkedHashMap<String, String>();
+		//the renderer and the canvas pass the shapes as arguments, so that their class diffs look up the class diffs of the shapes
+		files.put(SHAPE, lines(
+				"package example;",
+				"",
+				"public abstract class Shape {",
+				"	public abstract double area();",
+				"",
+				"	public String describe() {",
+				"		return getClass().getSimpleName() + \" \" + area();",
+				"	}",
+				"}"));
+		files.put(CIRCLE, lines(
+				"package example;",
+				"",
+				"public class Circle extends Shape {",
+				"	private double radius;",
+				"",
+				"	public Circle(double radius) {",
+				"		this.radius = radius;",
+				"	}",
+				"",
+				"	public double area() {",
+				"		return Math.PI * radius * radius;",
+				"	}",
+				"}"));
+		files.put(SQUARE, lines(
+				"package example;",
+				"",
+				"public class Square extends Shape {",
+				"	private double side;",
+				"",
+				"	public Square(double side) {",
+				"		this.side = side;",
+				"	}",
+				"",
+				"	public double area() {",
+				"		return side * side;",
+				"	}",
+				"}"));
+		files.put(RENDERER, lines(
+				"package example;",
+				"",
+				"public class Renderer {",
+				"	private StringBuilder output = new StringBuilder();",
+				"",
+				"	public void draw(Shape shape) {",
+				"		output.append(shape.describe());",
+				"		output.append('\\n');",
+				"	}",
+				"",
+				"	public String getOutput() {",
+				"		return output.toString();",
+				"	}",
+				"}"));
+		files.put(CANVAS, lines(
+				"package example;",
+				"",
+				"public class Canvas {",
+				"	private Renderer renderer = new Renderer();",
+				"",
+				"	public String paint(double size) {",
+				"		Circle circle = new Circle(size);",
+				"		renderer.draw(circle);",
+				"		Square square = new Square(size);",
+				"		renderer.draw(square);",
+				"		return renderer.getOutput();",
+				"	}",
+				"}"));
+		firstCommitId = repository.commit("initial", files);
+
+		files.put(RENDERER, files.get(RENDERER).replace("draw(", "render(").replace("describe()", "toString()"));
+		files.put(SHAPE, files.get(SHAPE).replace("describe()", "toString()"));
+		files.put(CANVAS, lines(
+				"package example;",
+				"",
+				"public class Canvas {",
+				"	private Renderer renderer = new Renderer();",
+				"",
+				"	public String paint(double size) {",
+				"		paintCircle(size);",
+				"		paintSquare(size);",
+				"		return renderer.getOutput();",
+				"	}",
+				"",
+				"	private void paintCircle(double size) {",
+				"		Circle circle = new Circle(size);",
+				"		renderer.render(circle);",
+				"	}",
+				"",
+				"	private void paintSquare(double size) {",
+				"		Square square = new Square(size);",
+				"		renderer.render(square);",
+				"	}",
+				"}"));
+		repository.commit("rename draw and describe, extract paintCircle and paintSquare", files);
+
+		files.put(CIRCLE, files.get(CIRCLE).replace("radius", "r"));
+		files.put(SQUARE, files.get(SQUARE).replace("return side * side;", "double s = side;\n\t\treturn s * s;"));
+		files.put(CANVAS, files.get(CANVAS).replace("paintCircle(", "drawCircle(").replace("paintSquare(", "drawSquare("));
+		lastCommitId = repository.commit("rename radius and the paint methods, extract variable", files);
+	}
+
+	@AfterClass
+	public static void deleteHistory() throws Exception {
+		repository.close();
+	}
+
+	@Test
+	public void testSameRefactoringsWithAndWithoutClassDiffThreads() throws Exception {
+		Map<String, List<String>> sequential = detect(new GitHistoryRefactoringMinerImpl());
+		assertEquals(2, sequential.size());
+		assertTrue(refactoringsCount(sequential) > 0);
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		miner.setNumberOfClassDiffThreads(4);
+		//the models are not reused, so that every walk diffs the classes again
+		miner.setParsedFileCacheSize(0);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(sequential, detect(miner));
+		}
+	}
+
+	private static Map<String, List<String>> detect(GitHistoryRefactoringMinerImpl miner) throws Exception {
+		Map<String, List<String>> refactorings = new LinkedHashMap<String, List<String>>();
+		miner.detectBetweenCommits(repository.getRepository(), firstCommitId, lastCommitId, new RefactoringHandler() {
+			@Override
+			public void handle(String commitId, List<Refactoring> refactoringsAtRevision) {
+				List<String> descriptions = new ArrayList<String>();
+				for (Refactoring refactoring : refactoringsAtRevision) {
+					descriptions.add(refactoring.toJSON());
+				}
+				refactorings.put(commitId, descriptions);
+			}
+		});
+		return refactorings;
+	}
+
+	private static int refactoringsCount(Map<String, List<String>> refactorings) {
+		int count = 0;
+		for (List<String> refactoringsAtRevision : refactorings.values()) {
+			count += refactoringsAtRevision.size();
+		}
+		return count;
+	}
+}
@@ -0,0 +1,145 @@
+package org.refactoringminer.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.refactoringminer.test.TestRepository.lines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.api.RefactoringMinerCommitTooLargeException;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+
+public class TestCommitSizeLimits {
+
+	private static TestRepository repository;
+	private static String commitId;
+
+	@BeforeClass
+	public static void createHistory() throws Exception {
+		repository = new TestRepository();
+		Map<String, String> files = new LinkedHashMap<String, String>();
+		//two changed files, with more than 100 bytes and 3 statements before and after the commit
+		files.put("src/example/Foo.java", lines(
+				"package example;",
+				"",
+				"public class Foo {",
+				"	private int value;",
+				"",
+				"	public int twice() {",
+				"		int result = value;",
+				"		result += value;",
+				"		return result;",
+				"	}",
+				"}"));
+		files.put("src/example/Bar.java", lines(
+				"package example;",
+				"",
+				"public class Bar {",
+				"	private int value;",
+				"",
+				"	public int thrice() {",
+				"		int result = value;",
+				"		result += 2 * value;",
+				"		return result;",
+				"	}",
+				"}"));
+		repository.commit("initial", files);
+		files.put("src/example/Foo.java", files.get("src/example/Foo.java").replace("twice", "doubled"));
+		files.put("src/example/Bar.java", files.get("src/example/Bar.java").replace("thrice", "tripled"));
+		commitId = repository.commit("rename twice and thrice", files);
+	}
+
+	@AfterClass
+	public static void deleteHistory() throws Exception {
+		repository.close();
+	}
+
+	@Test
+	public void testFileLimit() throws Exception {
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		miner.setCommitSizeLimits(3, 0, 0);
+		assertCommitTooLarge(miner, "4 files exceed the limit of 3 files");
+	}
+
+	@Test
+	public void testSourceByteLimit() throws Exception {
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		miner.setCommitSizeLimits(0, 100, 0);
+		assertCommitTooLarge(miner, "source bytes exceed the limit of 100 bytes");
+	}
+
+	@Test
+	public void testStatementLimit() throws Exception {
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		miner.setCommitSizeLimits(0, 0, 3);
+		assertCommitTooLarge(miner, "statements exceed the limit of 3 statements");
+	}
+
+	@Test
+	public void testStatementLimitWithParsingThreads() throws Exception {
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		miner.setNumberOfParsingThreads(2);
+		miner.setCommitSizeLimits(0, 0, 3);
+		assertCommitTooLarge(miner, "statements exceed the limit of 3 statements");
+	}
+
+	@Test
+	public void testHeapUsageLimit() throws Exception {
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		miner.setCommitHeapUsageLimit(0.000001);
+		//a full collection records the heap it leaves in every heap pool
+		System.gc();
+		assertCommitTooLarge(miner, "heap bytes used after collection exceed");
+	}
+
+	@Test
+	public void testNoLimits() throws Exception {
+		List<Exception> exceptions = new ArrayList<Exception>();
+		List<String> unlimited = detect(new GitHistoryRefactoringMinerImpl(), exceptions);
+		assertTrue(unlimited.size() > 0);
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		miner.setCommitSizeLimits(0, 0, 0);
+		miner.setCommitHeapUsageLimit(0);
+		assertEquals(unlimited, detect(miner, exceptions));
+		assertEquals(Collections.emptyList(), exceptions);
+	}
+
+	private static void assertCommitTooLarge(GitHistoryRefactoringMinerImpl miner, String message) throws Exception {
+		List<Exception> exceptions = new ArrayList<Exception>();
+		assertNull(detect(miner, exceptions));
+		assertEquals(1, exceptions.size());
+		assertTrue(exceptions.get(0) instanceof RefactoringMinerCommitTooLargeException);
+		assertTrue(exceptions.get(0).getMessage(), exceptions.get(0).getMessage().contains(message));
+	}
+
+	//returns the refactorings passed to the handler, or null if the handler did not get them
+	private static List<String> detect(GitHistoryRefactoringMinerImpl miner, List<Exception> exceptions) throws Exception {
+		List<List<String>> refactorings = new ArrayList<List<String>>();
+		miner.detectAtCommit(repository.getRepository(), commitId, new RefactoringHandler() {
+			@Override
+			public void handle(String commitId, List<Refactoring> refactoringsAtRevision) {
+				List<String> descriptions = new ArrayList<String>();
+				for (Refactoring refactoring : refactoringsAtRevision) {
+					descriptions.add(refactoring.toJSON());
+				}
+				refactorings.add(descriptions);
+			}
+
+			@Override
+			public void handleException(String commitId, Exception e) {
+				exceptions.add(e);
+			}
+		});
+		return refactorings.isEmpty() ? null : refactorings.get(0);
+	}
+}
@@ -0,0 +1,213 @@
+package org.refactoringminer.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.refactoringminer.test.TestRepository.lines;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+
+public class TestParsedFileCache {
+
+	private static final String FOO = "src/example/Foo.java";
+	private static final String BAR = "src/example/Bar.java";
+
+	private static TestRepository repository;
+	private static String firstCommitId;
+	private static String lastCommitId;
+
+	@BeforeClass
+	public static void createHistory() throws Exception {
+		repository = new TestRepository();
+		Map<String, String> files = new LinkedHashMap<String, String>();
+		//the statement extracted from two methods is a single statement before and a block in the extracted method
+		files.put(FOO, lines(
+				"package example;",
+				"",
+				"public class Foo {",
+				"	private int value;",
+				"	private boolean verbose;",
+				"",
+				"	public void run() {",
+				"		value++;",
+				"		if(verbose)",
+				"			System.out.println(\"value \" + value);",
+				"		value *= 2;",
+				"	}",
+				"",
+				"	public void reset() {",
+				"		value = 0;",
+				"		if(verbose)",
+				"			System.out.println(\"value \" + value);",
+				"		verbose = false;",
+				"	}",
+				"}"));
+		files.put(BAR, lines(
+				"package example;",
+				"",
+				"import java.util.List;",
+				"",
+				"public class Bar {",
+				"	public int compute(List<Integer> values) {",
+				"		int sum = 0;",
+				"		for(Integer v : values) {",
+				"			sum += v;",
+				"		}",
+				"		int max = 0;",
+				"		for(Integer v : values) {",
+				"			if(v > max) {",
+				"				max = v;",
+				"			}",
+				"		}",
+				"		return sum - max;",
+				"	}",
+				"}"));
+		firstCommitId = repository.commit("initial", files);
+
+		files.put(FOO, lines(
+				"package example;",
+				"",
+				"public class Foo {",
+				"	private int value;",
+				"	private boolean verbose;",
+				"",
+				"	public void run() {",
+				"		value++;",
+				"		log(verbose, value);",
+				"		value *= 2;",
+				"	}",
+				"",
+				"	public void reset() {",
+				"		value = 0;",
+				"		log(verbose, value);",
+				"		verbose = false;",
+				"	}",
+				"",
+				"	private static void log(boolean verbose, int value) {",
+				"		if(verbose) {",
+				"			System.out.println(\"value \" + value);",
+				"		}",
+				"	}",
+				"}"));
+		files.put(BAR, files.get(BAR).replace("compute(", "calculate("));
+		repository.commit("extract log, rename compute", files);
+
+		files.put(FOO, files.get(FOO).replace("void run()", "void execute()").replace("void reset()", "void clear()"));
+		files.put(BAR, lines(
+				"package example;",
+				"",
+				"import java.util.List;",
+				"",
+				"public class Bar {",
+				"	public int calculate(List<Integer> values) {",
+				"		return sum(values) - max(values);",
+				"	}",
+				"",
+				"	private int sum(List<Integer> values) {",
+				"		int sum = 0;",
+				"		for(Integer v : values) {",
+				"			sum += v;",
+				"		}",
+				"		return sum;",
+				"	}",
+				"",
+				"	private int max(List<Integer> values) {",
+				"		int max = 0;",
+				"		for(Integer v : values) {",
+				"			if(v > max) {",
+				"				max = v;",
+				"			}",
+				"		}",
+				"		return max;",
+				"	}",
+				"}"));
+		repository.commit("rename run and reset, extract sum and max", files);
+
+		//the extracted block is inlined back as a single statement
+		files.put(FOO, lines(
+				"package example;",
+				"",
+				"public class Foo {",
+				"	private int value;",
+				"	private boolean verbose;",
+				"",
+				"	public void execute() {",
+				"		value++;",
+				"		if(verbose)",
+				"			System.out.println(\"value \" + value);",
+				"		value *= 2;",
+				"	}",
+				"",
+				"	public void clear() {",
+				"		value = 0;",
+				"		if(verbose)",
+				"			System.out.println(\"value \" + value);",
+				"		verbose = false;",
+				"	}",
+				"}"));
+		files.put(BAR, files.get(BAR).replace("int sum = 0;", "int total = 0;").replace("sum += v;", "total += v;").replace("return sum;", "return total;"));
+		lastCommitId = repository.commit("inline log, rename sum", files);
+	}
+
+	@AfterClass
+	public static void deleteHistory() throws Exception {
+		repository.close();
+	}
+
+	@Test
+	public void testSameRefactoringsWithAndWithoutCache() throws Exception {
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		Map<String, List<String>> cached = detect(miner);
+		miner.setParsedFileCacheSize(0);
+		Map<String, List<String>> uncached = detect(miner);
+		assertEquals(3, uncached.size());
+		assertTrue(refactoringsCount(uncached) > 0);
+		assertEquals(uncached, cached);
+	}
+
+	@Test
+	public void testSameRefactoringsWithAndWithoutCacheInParallel() throws Exception {
+		GitHistoryRefactoringMinerImpl uncachedMiner = new GitHistoryRefactoringMinerImpl();
+		uncachedMiner.setParsedFileCacheSize(0);
+		Map<String, List<String>> uncached = detect(uncachedMiner);
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		miner.setNumberOfThreads(2);
+		//the second walk reuses the models the first one left in the cache, while commits sharing them are in flight
+		for (int i = 0; i < 2; i++) {
+			assertEquals(uncached, detect(miner));
+		}
+	}
+
+	private static Map<String, List<String>> detect(GitHistoryRefactoringMinerImpl miner) throws Exception {
+		Map<String, List<String>> refactorings = new LinkedHashMap<String, List<String>>();
+		miner.detectBetweenCommits(repository.getRepository(), firstCommitId, lastCommitId, new RefactoringHandler() {
+			@Override
+			public void handle(String commitId, List<Refactoring> refactoringsAtRevision) {
+				List<String> descriptions = new ArrayList<String>();
+				for (Refactoring refactoring : refactoringsAtRevision) {
+					//the JSON form includes the code ranges, which are computed from the statements of the models
+					descriptions.add(refactoring.toJSON());
+				}
+				refactorings.put(commitId, descriptions);
+			}
+		});
+		return refactorings;
+	}
+
+	private static int refactoringsCount(Map<String, List<String>> refactorings) {
+		int count = 0;
+		for (List<String> refactoringsAtRevision : refactorings.values()) {
+			count += refactoringsAtRevision.size();
+		}
+		return count;
+	}
+}
@@ -0,0 +1,127 @@
+package org.refactoringminer.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.refactoringminer.test.TestRepository.lines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.refactoringminer.api.DetectionPhase;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.util.CommitBudget;
+
+import gr.uom.java.xmi.UMLModel;
+
+public class TestPartialResults {
+
+	@Test
+	public void testSkippedPhasesAreReported() throws Exception {
+		try (TestRepository repository = new TestRepository()) {
+			Map<String, String> files = new LinkedHashMap<String, String>();
+			files.put("src/example/Foo.java", lines(
+					"package example;",
+					"",
+					"public class Foo {",
+					"	public int twice(int value) {",
+					"		return 2 * value;",
+					"	}",
+					"}"));
+			files.put("src/example/Bar.java", lines(
+					"package example;",
+					"",
+					"public class Bar {",
+					"	public int thrice(int value) {",
+					"		return 3 * value;",
+					"	}",
+					"}"));
+			repository.commit("initial", files);
+			files.put("src/example/Foo.java", files.get("src/example/Foo.java").replace("twice", "doubled"));
+			files.put("src/example/Bar.java", files.get("src/example/Bar.java").replace("thrice", "tripled"));
+			String commitId = repository.commit("rename twice and thrice", files);
+
+			//the budget is cancelled while the last of the four files of the commit is parsed, as if the timeout was reached then,
+			//so that the budget is exhausted before the diff starts
+			AtomicInteger parsedFiles = new AtomicInteger();
+			GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl() {
+				@Override
+				protected UMLModel createModel(Map<String, String> fileContents, Set<String> repositoryDirectories) throws Exception {
+					if (parsedFiles.incrementAndGet() == 4) {
+						CommitBudget.current().cancel();
+					}
+					return super.createModel(fileContents, repositoryDirectories);
+				}
+			};
+			miner.setParsedFileCacheSize(0);
+			miner.setPartialResultsOnTimeout(true);
+			List<String> events = Collections.synchronizedList(new ArrayList<String>());
+			List<Set<DetectionPhase>> skippedPhases = Collections.synchronizedList(new ArrayList<Set<DetectionPhase>>());
+			miner.detectAtCommit(repository.getRepository(), commitId, new RefactoringHandler() {
+				@Override
+				public void handlePartialResults(String commitId, Set<DetectionPhase> phases) {
+					events.add("partial " + commitId);
+					skippedPhases.add(phases);
+				}
+
+				@Override
+				public void handle(String commitId, List<Refactoring> refactorings) {
+					events.add("handle " + commitId);
+				}
+			}, 60);
+
+			assertEquals(4, parsedFiles.get());
+			//the partial results are reported before the refactorings
+			assertEquals(2, events.size());
+			assertEquals("partial " + commitId, events.get(0));
+			assertEquals("handle " + commitId, events.get(1));
+			assertEquals(EnumSet.allOf(DetectionPhase.class), skippedPhases.get(0));
+		}
+	}
+
+	@Test
+	public void testNoPartialResultsWithinTimeout() throws Exception {
+		try (TestRepository repository = new TestRepository()) {
+			Map<String, String> files = new LinkedHashMap<String, String>();
+			files.put("src/example/Foo.java", lines(
+					"package example;",
+					"",
+					"public class Foo {",
+					"	public int twice(int value) {",
+					"		return 2 * value;",
+					"	}",
+					"}"));
+			repository.commit("initial", files);
+			files.put("src/example/Foo.java", files.get("src/example/Foo.java").replace("twice", "doubled"));
+			String commitId = repository.commit("rename twice", files);
+
+			GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+			miner.setPartialResultsOnTimeout(true);
+			List<String> events = Collections.synchronizedList(new ArrayList<String>());
+			List<Refactoring> refactorings = Collections.synchronizedList(new ArrayList<Refactoring>());
+			miner.detectAtCommit(repository.getRepository(), commitId, new RefactoringHandler() {
+				@Override
+				public void handlePartialResults(String commitId, Set<DetectionPhase> phases) {
+					events.add("partial " + commitId);
+				}
+
+				@Override
+				public void handle(String commitId, List<Refactoring> refactoringsAtRevision) {
+					events.add("handle " + commitId);
+					refactorings.addAll(refactoringsAtRevision);
+				}
+			}, 60);
+
+			assertEquals(Collections.singletonList("handle " + commitId), events);
+			assertTrue(refactorings.size() > 0);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.refactoringminer.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Random;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Test;
+import org.refactoringminer.util.RefactoringJSONWriter;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.diff.CodeRange;
+
+public class TestRefactoringJSONWriter {
+
+	@Test
+	public void testEscapingMatchesJackson() throws IOException {
+		assertEscaped("");
+		assertEscaped("plain text");
+		assertEscaped("\"quoted\"");
+		assertEscaped("back\\slash \\\" \\\\");
+		assertEscaped("\b\f\n\r\t");
+		assertEscaped("line 1\r\nline 2\n\ttabbed");
+		assertEscaped("/path/to/File.java");
+		assertEscaped("caf\u00E9 \u20AC \uD83D\uDE00 \u007F \u2028");
+		StringBuilder controlCharacters = new StringBuilder();
+		for(char c = 0; c < 0x20; c++) {
+			controlCharacters.append(c).append('x');
+		}
+		assertEscaped(controlCharacters.toString());
+	}
+
+	@Test
+	public void testRandomStringsMatchJackson() throws IOException {
+		Random random = new Random(42);
+		String characters = "ab\"\\/\u0000\u0001\u001F\u007F\b\f\n\r\t \u00E9\u2028";
+		for(int k = 0; k < 5000; k++) {
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt(20);
+			for(int i = 0; i < length; i++) {
+				sb.append(characters.charAt(random.nextInt(characters.length())));
+			}
+			assertEscaped(sb.toString());
+		}
+	}
+
+	@Test
+	public void testCodeRangeIsParsedBack() throws IOException {
+		String codeElement = "String s = \"a\\tb\";\n\u0000";
+		CodeRange codeRange = new CodeRange("src/\"A\".java", 1, 2, 3, 4, CodeElementType.VARIABLE_DECLARATION_STATEMENT)
+				.setDescription("extracted\tvariable declaration")
+				.setCodeElement(codeElement);
+		StringWriter writer = new StringWriter();
+		new RefactoringJSONWriter(writer).writeCodeRange(codeRange);
+		JsonNode node = new ObjectMapper().readTree(writer.toString());
+		assertEquals("src/\"A\".java", node.get("filePath").asText());
+		assertEquals(2, node.get("endLine").asInt());
+		assertEquals("extracted\tvariable declaration", node.get("description").asText());
+		assertEquals(codeElement, node.get("codeElement").asText());
+	}
+
+	//the compact layout of an involved class, with the value as both the file path and the class name
+	private static void assertEscaped(String value) throws IOException {
+		StringWriter writer = new StringWriter();
+		new RefactoringJSONWriter(writer, false).writeInvolvedClasses(Collections.singleton(ImmutablePair.of(value, value)));
+		String quoted = "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + "\"";
+		assertEquals("[{\"filePath\": " + quoted + ", \"className\": " + quoted + "}]", writer.toString());
+	}
+}
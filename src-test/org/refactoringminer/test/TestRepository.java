@@ -0,0 +1,51 @@
+package org.refactoringminer.test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * A throwaway git repository in a temporary directory, for the tests that run the miner over a few commits.
+ */
+public class TestRepository implements AutoCloseable {
+
+	private final File directory;
+	private final Git git;
+	private final PersonIdent author = new PersonIdent("RefactoringMiner", "refactoringminer@example.com");
+
+	public TestRepository() throws Exception {
+		this.directory = Files.createTempDirectory("refactoringminer").toFile();
+		this.git = Git.init().setDirectory(directory).call();
+	}
+
+	public Repository getRepository() {
+		return git.getRepository();
+	}
+
+	//writes the given files, keyed by their path in the repository, and commits all changes
+	public String commit(String message, Map<String, String> files) throws Exception {
+		for (String filePath : files.keySet()) {
+			File file = new File(directory, filePath);
+			file.getParentFile().mkdirs();
+			FileUtils.writeStringToFile(file, files.get(filePath), StandardCharsets.UTF_8);
+			git.add().addFilepattern(filePath).call();
+		}
+		return git.commit().setMessage(message).setAuthor(author).setCommitter(author).call().getName();
+	}
+
+	public static String lines(String ... lines) {
+		return String.join("\n", lines) + "\n";
+	}
+
+	@Override
+	public void close() throws Exception {
+		git.close();
+		FileUtils.deleteDirectory(directory);
+	}
+}
@@ -0,0 +1,126 @@
+package org.refactoringminer.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import gr.uom.java.xmi.diff.StringDistance;
+
+public class TestStringDistance {
+
+	@Test
+	public void testEditDistanceMatchesLevenshtein() {
+		Random random = new Random(42);
+		for(int k = 0; k < 20000; k++) {
+			String a = randomString(random, random.nextInt(12));
+			String b = random.nextInt(4) == 0 ? mutate(random, a) : randomString(random, random.nextInt(12));
+			assertEquals(a + " / " + b, levenshtein(a, b), StringDistance.editDistance(a, b));
+		}
+	}
+
+	@Test
+	public void testThresholdedEditDistanceMatchesLevenshtein() {
+		Random random = new Random(42);
+		for(int k = 0; k < 20000; k++) {
+			String a = randomString(random, random.nextInt(12));
+			String b = random.nextInt(4) == 0 ? mutate(random, a) : randomString(random, random.nextInt(12));
+			int distance = levenshtein(a, b);
+			for(int threshold = -1; threshold <= 13; threshold++) {
+				assertThresholded(a, b, distance, threshold);
+			}
+			assertThresholded(a, b, distance, Integer.MAX_VALUE);
+		}
+	}
+
+	@Test
+	public void testThresholdEdgeCases() {
+		assertThresholded("", "", 0, 0);
+		assertThresholded("", "", 0, -1);
+		assertThresholded("", "abc", 3, 3);
+		assertThresholded("", "abc", 3, 2);
+		assertThresholded("abc", "", 3, 3);
+		assertThresholded("abc", "abc", 0, 0);
+		assertThresholded("abc", "abd", 1, 0);
+		assertThresholded("abc", "abd", 1, 1);
+		//the length difference alone reaches the threshold
+		assertThresholded("ab", "abcd", 2, 2);
+		assertThresholded("ab", "abcd", 2, 1);
+		//the distance is reached outside the band of a smaller threshold
+		assertThresholded("abcdef", "fabcde", 2, 2);
+		assertThresholded("abcdef", "fabcde", 2, 1);
+		assertThresholded("kitten", "sitting", 3, 3);
+		assertThresholded("kitten", "sitting", 3, 2);
+	}
+
+	@Test
+	public void testLongStrings() {
+		Random random = new Random(42);
+		for(int k = 0; k < 200; k++) {
+			String a = randomString(random, 50 + random.nextInt(200));
+			String b = mutate(random, a);
+			int distance = levenshtein(a, b);
+			assertEquals(distance, StringDistance.editDistance(a, b));
+			assertThresholded(a, b, distance, distance);
+			assertThresholded(a, b, distance, distance - 1);
+			assertThresholded(a, b, distance, distance + 1);
+			assertThresholded(a, b, distance, Integer.MAX_VALUE);
+		}
+	}
+
+	private static void assertThresholded(String a, String b, int distance, int threshold) {
+		int expected = threshold >= 0 && distance <= threshold ? distance : -1;
+		assertEquals(a + " / " + b + " within " + threshold, expected, StringDistance.editDistance(a, b, threshold));
+	}
+
+	//the full dynamic programming matrix
+	private static int levenshtein(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for(int i = 0; i <= a.length(); i++) {
+			d[i][0] = i;
+		}
+		for(int j = 0; j <= b.length(); j++) {
+			d[0][j] = j;
+		}
+		for(int i = 1; i <= a.length(); i++) {
+			for(int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+
+	//a small alphabet, so that the random strings share characters
+	private static String randomString(Random random, int length) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < length; i++) {
+			sb.append((char)('a' + random.nextInt(4)));
+		}
+		return sb.toString();
+	}
+
+	private static String mutate(Random random, String s) {
+		StringBuilder sb = new StringBuilder(s);
+		int edits = random.nextInt(1 + s.length() / 4 + 2);
+		for(int i = 0; i < edits; i++) {
+			int position = sb.length() == 0 ? 0 : random.nextInt(sb.length());
+			switch(random.nextInt(3)) {
+			case 0:
+				sb.insert(position, (char)('a' + random.nextInt(4)));
+				break;
+			case 1:
+				if(sb.length() > 0) {
+					sb.deleteCharAt(position);
+				}
+				break;
+			default:
+				if(sb.length() > 0) {
+					sb.setCharAt(position, (char)('a' + random.nextInt(4)));
+				}
+			}
+		}
+		return sb.toString();
+	}
+}
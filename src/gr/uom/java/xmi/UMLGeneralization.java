@@ -1,6 +1,9 @@
 package gr.uom.java.xmi;
 
-public class UMLGeneralization implements Comparable<UMLGeneralization> {
+import java.io.Serializable;
+
+public class UMLGeneralization implements Comparable<UMLGeneralization>, Serializable {
+    private static final long serialVersionUID = 1L;
     private UMLClass child;
     private String parent;
 
@@ -3,48 +3,88 @@ package gr.uom.java.xmi;
 import gr.uom.java.xmi.diff.UMLClassDiff;
 import gr.uom.java.xmi.diff.UMLModelDiff;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
+import org.refactoringminer.api.DetectionPhase;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 
-public class UMLModel {
+public class UMLModel implements Serializable {
+	private static final long serialVersionUID = 1L;
 	private Set<String> repositoryDirectories;
     private List<UMLClass> classList;
     private List<UMLGeneralization> generalizationList;
     private List<UMLRealization> realizationList;
+    //indexes keyed on the fields compared by UMLClass.equals, since UMLClass does not override hashCode
+    private Map<List<String>, UMLClass> classMap;
+    private Map<List<String>, List<UMLGeneralization>> generalizationMap;
+    private Map<List<String>, List<UMLRealization>> realizationMap;
 
     public UMLModel(Set<String> repositoryDirectories) {
     	this.repositoryDirectories = repositoryDirectories;
         classList = new ArrayList<UMLClass>();
         generalizationList = new ArrayList<UMLGeneralization>();
         realizationList = new ArrayList<UMLRealization>();
+        classMap = new HashMap<List<String>, UMLClass>();
+        generalizationMap = new HashMap<List<String>, List<UMLGeneralization>>();
+        realizationMap = new HashMap<List<String>, List<UMLRealization>>();
+    }
+
+    private static List<String> classKey(UMLClass umlClass) {
+    	return Arrays.asList(umlClass.packageName, umlClass.name, umlClass.getSourceFile());
     }
 
 	public void addClass(UMLClass umlClass) {
         classList.add(umlClass);
+        classMap.putIfAbsent(classKey(umlClass), umlClass);
     }
 
     public void addGeneralization(UMLGeneralization umlGeneralization) {
         generalizationList.add(umlGeneralization);
+        generalizationMap.computeIfAbsent(classKey(umlGeneralization.getChild()), k -> new ArrayList<UMLGeneralization>()).add(umlGeneralization);
     }
 
     public void addRealization(UMLRealization umlRealization) {
     	realizationList.add(umlRealization);
+    	realizationMap.computeIfAbsent(classKey(umlRealization.getClient()), k -> new ArrayList<UMLRealization>()).add(umlRealization);
+    }
+
+    public void merge(UMLModel umlModel) {
+    	for(UMLClass umlClass : umlModel.classList) {
+    		addClass(umlClass);
+    	}
+    	for(UMLGeneralization umlGeneralization : umlModel.generalizationList) {
+    		addGeneralization(umlGeneralization);
+    	}
+    	for(UMLRealization umlRealization : umlModel.realizationList) {
+    		addRealization(umlRealization);
+    	}
     }
 
     public UMLClass getClass(UMLClass umlClassFromOtherModel) {
-    	ListIterator<UMLClass> it = classList.listIterator();
-        while(it.hasNext()) {
-            UMLClass umlClass = it.next();
-            if(umlClass.equals(umlClassFromOtherModel))
-                return umlClass;
-        }
-        return null;
+    	return classMap.get(classKey(umlClassFromOtherModel));
+    }
+
+    private boolean containsClass(UMLClass umlClass) {
+    	return classMap.containsKey(classKey(umlClass));
+    }
+
+    private boolean containsGeneralization(UMLGeneralization umlGeneralization) {
+    	List<UMLGeneralization> generalizations = generalizationMap.get(classKey(umlGeneralization.getChild()));
+    	return generalizations != null && generalizations.contains(umlGeneralization);
+    }
+
+    private boolean containsRealization(UMLRealization umlRealization) {
+    	List<UMLRealization> realizations = realizationMap.get(classKey(umlRealization.getClient()));
+    	return realizations != null && realizations.contains(umlRealization);
     }
 
     public List<UMLClass> getClassList() {
@@ -60,7 +100,10 @@ public class UMLModel {
 	}
 
 	public UMLGeneralization matchGeneralization(UMLGeneralization otherGeneralization) {
-    	ListIterator<UMLGeneralization> generalizationIt = generalizationList.listIterator();
+    	List<UMLGeneralization> generalizations = generalizationMap.get(classKey(otherGeneralization.getChild()));
+    	if(generalizations == null)
+    		return null;
+    	ListIterator<UMLGeneralization> generalizationIt = generalizations.listIterator();
     	while(generalizationIt.hasNext()) {
     		UMLGeneralization generalization = generalizationIt.next();
     		if(generalization.getChild().equals(otherGeneralization.getChild())) {
@@ -84,7 +127,10 @@ public class UMLModel {
     }
 
     public UMLRealization matchRealization(UMLRealization otherRealization) {
-    	ListIterator<UMLRealization> realizationIt = realizationList.listIterator();
+    	List<UMLRealization> realizations = realizationMap.get(classKey(otherRealization.getClient()));
+    	if(realizations == null)
+    		return null;
+    	ListIterator<UMLRealization> realizationIt = realizations.listIterator();
     	while(realizationIt.hasNext()) {
     		UMLRealization realization = realizationIt.next();
     		if(realization.getClient().equals(otherRealization.getClient())) {
@@ -112,45 +158,54 @@ public class UMLModel {
     }
 
 	public UMLModelDiff diff(UMLModel umlModel, Map<String, String> renamedFileHints) throws RefactoringMinerTimedOutException {
+		return this.diff(umlModel, renamedFileHints, null);
+	}
+
+	//with an executor, the diffs of the common classes are processed concurrently
+	public UMLModelDiff diff(UMLModel umlModel, Map<String, String> renamedFileHints, ExecutorService classDiffExecutor) throws RefactoringMinerTimedOutException {
     	UMLModelDiff modelDiff = new UMLModelDiff();
     	for(UMLClass umlClass : classList) {
-    		if(!umlModel.classList.contains(umlClass))
+    		if(!umlModel.containsClass(umlClass))
     			modelDiff.reportRemovedClass(umlClass);
     	}
     	for(UMLClass umlClass : umlModel.classList) {
-    		if(!this.classList.contains(umlClass))
+    		if(!this.containsClass(umlClass))
     			modelDiff.reportAddedClass(umlClass);
     	}
-    	modelDiff.checkForMovedClasses(renamedFileHints, umlModel.repositoryDirectories, new UMLClassMatcher.Move());
-    	modelDiff.checkForRenamedClasses(renamedFileHints, new UMLClassMatcher.Rename());
+    	modelDiff.runPhase(DetectionPhase.CLASS_MOVES_AND_RENAMES, () -> {
+    		modelDiff.checkForMovedClasses(renamedFileHints, umlModel.repositoryDirectories, new UMLClassMatcher.Move());
+    		modelDiff.checkForRenamedClasses(renamedFileHints, new UMLClassMatcher.Rename());
+    	});
     	for(UMLGeneralization umlGeneralization : generalizationList) {
-    		if(!umlModel.generalizationList.contains(umlGeneralization))
+    		if(!umlModel.containsGeneralization(umlGeneralization))
     			modelDiff.reportRemovedGeneralization(umlGeneralization);
     	}
     	for(UMLGeneralization umlGeneralization : umlModel.generalizationList) {
-    		if(!this.generalizationList.contains(umlGeneralization))
+    		if(!this.containsGeneralization(umlGeneralization))
     			modelDiff.reportAddedGeneralization(umlGeneralization);
     	}
     	modelDiff.checkForGeneralizationChanges();
     	for(UMLRealization umlRealization : realizationList) {
-    		if(!umlModel.realizationList.contains(umlRealization))
+    		if(!umlModel.containsRealization(umlRealization))
     			modelDiff.reportRemovedRealization(umlRealization);
     	}
     	for(UMLRealization umlRealization : umlModel.realizationList) {
-    		if(!this.realizationList.contains(umlRealization))
+    		if(!this.containsRealization(umlRealization))
     			modelDiff.reportAddedRealization(umlRealization);
     	}
     	modelDiff.checkForRealizationChanges();
+    	List<UMLClassDiff> classDiffs = new ArrayList<UMLClassDiff>();
     	for(UMLClass umlClass : classList) {
-    		if(umlModel.classList.contains(umlClass)) {
-    			UMLClassDiff classDiff = new UMLClassDiff(umlClass, umlModel.getClass(umlClass), modelDiff);
-    			classDiff.process();
-    			if(!classDiff.isEmpty())
-    				modelDiff.addUMLClassDiff(classDiff);
+    		UMLClass nextClass = umlModel.getClass(umlClass);
+    		if(nextClass != null) {
+    			classDiffs.add(new UMLClassDiff(umlClass, nextClass, modelDiff));
     		}
     	}
-    	modelDiff.checkForMovedClasses(renamedFileHints, umlModel.repositoryDirectories, new UMLClassMatcher.RelaxedMove());
-    	modelDiff.checkForRenamedClasses(renamedFileHints, new UMLClassMatcher.RelaxedRename());
+    	modelDiff.runPhase(DetectionPhase.CLASS_DIFFS, () -> modelDiff.processUMLClassDiffs(classDiffs, classDiffExecutor));
+    	modelDiff.runPhase(DetectionPhase.CLASS_MOVES_AND_RENAMES, () -> {
+    		modelDiff.checkForMovedClasses(renamedFileHints, umlModel.repositoryDirectories, new UMLClassMatcher.RelaxedMove());
+    		modelDiff.checkForRenamedClasses(renamedFileHints, new UMLClassMatcher.RelaxedRename());
+    	});
     	return modelDiff;
     }
 }
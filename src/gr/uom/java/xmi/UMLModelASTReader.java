@@ -6,11 +6,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -46,6 +52,7 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.dom.TypeParameter;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+import org.refactoringminer.util.CommitBudget;
 
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.decomposition.OperationBody;
@@ -54,6 +61,9 @@ import gr.uom.java.xmi.decomposition.VariableDeclaration;
 public class UMLModelASTReader {
 	private static final String FREE_MARKER_GENERATED = "generated using freemarker";
 	private static final String systemFileSeparator = Matcher.quoteReplacement(File.separator);
+	private static final Map<String, String> COMPILER_OPTIONS = buildCompilerOptions();
+	//ASTParser instances are not thread-safe, so each thread reuses its own
+	private static final ThreadLocal<ASTParser> IN_MEMORY_PARSER = ThreadLocal.withInitial(() -> ASTParser.newParser(AST.JLS11));
 	
 	private UMLModel umlModel;
 	private String projectRoot;
@@ -61,25 +71,95 @@ public class UMLModelASTReader {
 
 	public UMLModelASTReader(Map<String, String> javaFileContents, Set<String> repositoryDirectories) {
 		this.umlModel = new UMLModel(repositoryDirectories);
-		this.parser = ASTParser.newParser(AST.JLS11);
+		FileASTRequestor fileASTRequestor = new FileASTRequestor() {
+			@Override
+			public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+				processCompilationUnit(sourceFilePath, ast);
+			}
+		};
+		createASTs(javaFileContents, fileASTRequestor);
+	}
+
+	public UMLModelASTReader(Map<String, String> javaFileContents, Set<String> repositoryDirectories, ForkJoinPool pool) {
+		this.umlModel = new UMLModel(repositoryDirectories);
+		for(UMLModel fileModel : createFileModels(javaFileContents, pool).values()) {
+			umlModel.merge(fileModel);
+		}
+	}
+
+	//parses the files concurrently in the given pool, each into its own model, and returns the models in the order of the files
+	public static Map<String, UMLModel> createFileModels(Map<String, String> javaFileContents, ForkJoinPool pool) {
+		return createFileModels(javaFileContents, pool, fileModel -> true);
+	}
+
+	//each parsed model is passed to accepted by the task that parsed it, and once a model is not accepted,
+	//no more files are submitted and the files not yet parsed are skipped, so that the returned map lacks their models.
+	//the files not yet parsed are also skipped once the budget bound to the calling thread is exhausted
+	public static Map<String, UMLModel> createFileModels(Map<String, String> javaFileContents, ForkJoinPool pool, Predicate<UMLModel> accepted) {
+		AtomicBoolean stopped = new AtomicBoolean();
+		CommitBudget budget = CommitBudget.current();
+		Map<String, ForkJoinTask<UMLModel>> tasks = new LinkedHashMap<String, ForkJoinTask<UMLModel>>();
 		for(String filePath : javaFileContents.keySet()) {
-			Map<String, String> options = JavaCore.getOptions();
-			options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
-			options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
-			options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
-			parser.setCompilerOptions(options);
-			parser.setResolveBindings(false);
-			parser.setKind(ASTParser.K_COMPILATION_UNIT);
-			parser.setStatementsRecovery(true);
-			parser.setSource(javaFileContents.get(filePath).toCharArray());
-			if(javaFileContents.get(filePath).contains(FREE_MARKER_GENERATED)) {
+			String javaFileContent = javaFileContents.get(filePath);
+			if(isGeneratedFile(javaFileContent) || stopped.get()) {
+				break;
+			}
+			Map<String, String> fileContents = Collections.singletonMap(filePath, javaFileContent);
+			tasks.put(filePath, pool.submit(() -> {
+				if(stopped.get() || (budget != null && budget.isExhausted())) {
+					return null;
+				}
+				UMLModel fileModel = new UMLModelASTReader(fileContents, Collections.<String>emptySet()).getUmlModel();
+				if(!accepted.test(fileModel)) {
+					stopped.set(true);
+				}
+				return fileModel;
+			}));
+		}
+		Map<String, UMLModel> fileModels = new LinkedHashMap<String, UMLModel>();
+		for(String filePath : tasks.keySet()) {
+			UMLModel fileModel = tasks.get(filePath).join();
+			if(fileModel != null) {
+				fileModels.put(filePath, fileModel);
+			}
+		}
+		return fileModels;
+	}
+
+	//counterpart of ASTParser.createASTs for in-memory sources, stops at the first file generated using freemarker
+	public static void createASTs(Map<String, String> javaFileContents, FileASTRequestor fileASTRequestor) {
+		for(String filePath : javaFileContents.keySet()) {
+			String javaFileContent = javaFileContents.get(filePath);
+			if(isGeneratedFile(javaFileContent)) {
 				return;
 			}
-			CompilationUnit compilationUnit = (CompilationUnit)parser.createAST(null);
-			processCompilationUnit(filePath, compilationUnit);
+			fileASTRequestor.acceptAST(filePath, createAST(javaFileContent));
 		}
 	}
 
+	public static CompilationUnit createAST(String javaFileContent) {
+		ASTParser parser = IN_MEMORY_PARSER.get();
+		//the parser restores its default settings after each createAST
+		parser.setCompilerOptions(COMPILER_OPTIONS);
+		parser.setResolveBindings(false);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setStatementsRecovery(true);
+		parser.setSource(javaFileContent.toCharArray());
+		return (CompilationUnit)parser.createAST(null);
+	}
+
+	private static Map<String, String> buildCompilerOptions() {
+		Map<String, String> options = JavaCore.getOptions();
+		options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
+		options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
+		options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
+		return Collections.unmodifiableMap(options);
+	}
+
+	public static boolean isGeneratedFile(String javaFileContent) {
+		return javaFileContent.contains(FREE_MARKER_GENERATED);
+	}
+
 	public UMLModelASTReader(File rootFolder) throws IOException {
 		this(rootFolder, getJavaFilePaths(rootFolder));
 	}
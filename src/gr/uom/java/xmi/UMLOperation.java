@@ -13,6 +13,7 @@ import gr.uom.java.xmi.diff.StringDistance;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -37,6 +38,7 @@ public class UMLOperation implements Comparable<UMLOperation>, Serializable, Loc
 	private List<UMLTypeParameter> typeParameters;
 	private UMLJavadoc javadoc;
 	private List<UMLAnnotation> annotations;
+	private transient volatile Map<String, UMLType> variableTypeMap;
 	
 	public UMLOperation(String name, LocationInfo locationInfo) {
 		this.locationInfo = locationInfo;
@@ -177,13 +179,18 @@ public class UMLOperation implements Comparable<UMLOperation>, Serializable, Loc
 	}
 
 	public Map<String, UMLType> variableTypeMap() {
-		Map<String, UMLType> variableTypeMap = new LinkedHashMap<String, UMLType>();
-		for(UMLParameter parameter : parameters) {
-			if(!parameter.getKind().equals("return"))
-				variableTypeMap.put(parameter.getName(), parameter.getType());
-		}
-		for(VariableDeclaration declaration : getAllVariableDeclarations()) {
-			variableTypeMap.put(declaration.getVariableName(), declaration.getType());
+		Map<String, UMLType> variableTypeMap = this.variableTypeMap;
+		if(variableTypeMap == null) {
+			variableTypeMap = new LinkedHashMap<String, UMLType>();
+			for(UMLParameter parameter : parameters) {
+				if(!parameter.getKind().equals("return"))
+					variableTypeMap.put(parameter.getName(), parameter.getType());
+			}
+			for(VariableDeclaration declaration : getAllVariableDeclarations()) {
+				variableTypeMap.put(declaration.getVariableName(), declaration.getType());
+			}
+			variableTypeMap = Collections.unmodifiableMap(variableTypeMap);
+			this.variableTypeMap = variableTypeMap;
 		}
 		return variableTypeMap;
 	}
@@ -196,6 +203,17 @@ public class UMLOperation implements Comparable<UMLOperation>, Serializable, Loc
 
 	public void setBody(OperationBody body) {
 		this.operationBody = body;
+		this.variableTypeMap = null;
+	}
+
+	public int getBodyHashCode() {
+		if(operationBody != null)
+			return operationBody.getBodyHashCode();
+		return 0;
+	}
+
+	public boolean identicalBody(UMLOperation operation) {
+		return this.operationBody != null && operation.operationBody != null && this.operationBody.isIdenticalTo(operation.operationBody);
 	}
 
 	public String getNonQualifiedClassName() {
@@ -212,6 +230,7 @@ public class UMLOperation implements Comparable<UMLOperation>, Serializable, Loc
 
 	public void addParameter(UMLParameter parameter) {
 		this.parameters.add(parameter);
+		this.variableTypeMap = null;
 	}
 
 	public List<UMLParameter> getParameters() {
@@ -1,9 +1,11 @@
 package gr.uom.java.xmi;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class UMLTagElement {
+public class UMLTagElement implements Serializable {
+	private static final long serialVersionUID = 1L;
 	private String tagName;
 	private List<String> fragments;
 	
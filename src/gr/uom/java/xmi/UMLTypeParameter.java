@@ -1,9 +1,11 @@
 package gr.uom.java.xmi;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class UMLTypeParameter {
+public class UMLTypeParameter implements Serializable {
+	private static final long serialVersionUID = 1L;
 	private String name;
 	private List<UMLType> typeBounds;
 	private List<UMLAnnotation> annotations;
@@ -1,5 +1,6 @@
 package gr.uom.java.xmi.decomposition;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -10,15 +11,44 @@ import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.LocationInfoProvider;
 import gr.uom.java.xmi.decomposition.AbstractCall.StatementCoverageType;
 
-public abstract class AbstractCodeFragment implements LocationInfoProvider {
+public abstract class AbstractCodeFragment implements LocationInfoProvider, Serializable {
+	private static final long serialVersionUID = 1L;
 	private int depth;
 	private int index;
 	private String codeFragmentAfterReplacingParametersWithArguments;
+	//the argumentized string it was derived from, followed by the argumentized string without the return keyword, replaced as a whole when recomputed
+	private transient volatile String[] argumentizedStringWithoutReturn;
+	//the token ids of each kind, used to skip the intersection of the token strings of two fragments, replaced as a whole when the ids of another kind are computed
+	private transient volatile int[][] tokenIds;
+	private static final int VARIABLES = 0;
+	private static final int TYPES = 1;
+	private static final int STRING_LITERALS = 2;
+	private static final int NUMBER_LITERALS = 3;
+	private static final int BOOLEAN_LITERALS = 4;
+	private static final int INFIX_OPERATORS = 5;
+	private static final int ARRAY_ACCESSES = 6;
+	private static final int PREFIX_EXPRESSIONS = 7;
+	private static final int ARGUMENTS = 8;
 
 	public String getArgumentizedString() {
 		return codeFragmentAfterReplacingParametersWithArguments != null ? codeFragmentAfterReplacingParametersWithArguments : getString();
 	}
 
+	//the memoized value is recomputed whenever the fragment is argumentized again
+	String getArgumentizedStringWithoutReturn() {
+		String argumentizedString = getArgumentizedString();
+		String[] memo = argumentizedStringWithoutReturn;
+		if(memo == null || memo[0] != argumentizedString) {
+			String withoutReturn = argumentizedString;
+			if(argumentizedString.startsWith("return ") && argumentizedString.endsWith(";\n")) {
+				withoutReturn = argumentizedString.substring("return ".length(), argumentizedString.lastIndexOf(";\n"));
+			}
+			memo = new String[] {argumentizedString, withoutReturn};
+			argumentizedStringWithoutReturn = memo;
+		}
+		return memo[1];
+	}
+
     public int getDepth() {
 		return depth;
 	}
@@ -58,6 +88,76 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
 	public abstract VariableDeclaration searchVariableDeclaration(String variableName);
 	public abstract VariableDeclaration getVariableDeclaration(String variableName);
 	
+	int[] getVariableIds() {
+		return getTokenIds(VARIABLES);
+	}
+
+	int[] getTypeIds() {
+		return getTokenIds(TYPES);
+	}
+
+	int[] getStringLiteralIds() {
+		return getTokenIds(STRING_LITERALS);
+	}
+
+	int[] getNumberLiteralIds() {
+		return getTokenIds(NUMBER_LITERALS);
+	}
+
+	int[] getBooleanLiteralIds() {
+		return getTokenIds(BOOLEAN_LITERALS);
+	}
+
+	int[] getInfixOperatorIds() {
+		return getTokenIds(INFIX_OPERATORS);
+	}
+
+	int[] getArrayAccessIds() {
+		return getTokenIds(ARRAY_ACCESSES);
+	}
+
+	int[] getPrefixExpressionIds() {
+		return getTokenIds(PREFIX_EXPRESSIONS);
+	}
+
+	int[] getArgumentIds() {
+		return getTokenIds(ARGUMENTS);
+	}
+
+	private int[] getTokenIds(int kind) {
+		int[][] ids = tokenIds;
+		if(ids == null || ids[kind] == null) {
+			int[][] newIds = ids == null ? new int[ARGUMENTS + 1][] : ids.clone();
+			newIds[kind] = TokenIds.of(getTokens(kind));
+			tokenIds = newIds;
+			return newIds[kind];
+		}
+		return ids[kind];
+	}
+
+	private List<String> getTokens(int kind) {
+		switch(kind) {
+		case VARIABLES:
+			return getVariables();
+		case TYPES:
+			return getTypes();
+		case STRING_LITERALS:
+			return getStringLiterals();
+		case NUMBER_LITERALS:
+			return getNumberLiterals();
+		case BOOLEAN_LITERALS:
+			return getBooleanLiterals();
+		case INFIX_OPERATORS:
+			return getInfixOperators();
+		case ARRAY_ACCESSES:
+			return getArrayAccesses();
+		case PREFIX_EXPRESSIONS:
+			return getPrefixExpressions();
+		default:
+			return getArguments();
+		}
+	}
+
 	public void replaceParametersWithArguments(Map<String, String> parameterToArgumentMap) {
 		String afterReplacements = getString();
 		for(String parameter : parameterToArgumentMap.keySet()) {
@@ -158,6 +258,19 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
 		this.codeFragmentAfterReplacingParametersWithArguments = getString();
 	}
 
+	//restores the state right after parsing, including the fragments inside lambda expressions
+	public void clearArgumentization() {
+		this.codeFragmentAfterReplacingParametersWithArguments = null;
+		for(LambdaExpressionObject lambda : getLambdas()) {
+			if(lambda.getExpression() != null) {
+				lambda.getExpression().clearArgumentization();
+			}
+			if(lambda.getBody() != null) {
+				lambda.getBody().getCompositeStatement().clearArgumentization();
+			}
+		}
+	}
+
 	public ObjectCreation creationCoveringEntireFragment() {
 		Map<String, List<ObjectCreation>> creationMap = getCreationMap();
 		String statement = getString();
@@ -11,6 +11,7 @@ import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.diff.CodeRange;
 
 public class AbstractExpression extends AbstractCodeFragment {
+	private static final long serialVersionUID = 1L;
 	
 	private String expression;
 	private LocationInfo locationInfo;
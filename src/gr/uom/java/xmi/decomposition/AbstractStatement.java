@@ -3,6 +3,7 @@ package gr.uom.java.xmi.decomposition;
 import java.util.List;
 
 public abstract class AbstractStatement extends AbstractCodeFragment {
+	private static final long serialVersionUID = 1L;
 	private CompositeStatementObject parent;
 	
 	public void setParent(CompositeStatementObject parent) {
@@ -1,6 +1,7 @@
 package gr.uom.java.xmi.decomposition;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -15,11 +16,20 @@ import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.diff.CodeRange;
 
 public class CompositeStatementObject extends AbstractStatement {
+	private static final long serialVersionUID = 1L;
 
 	private List<AbstractStatement> statementList;
 	private List<AbstractExpression> expressionList;
 	private List<VariableDeclaration> variableDeclarations;
 	private LocationInfo locationInfo;
+	private String label;
+	//the aggregates of the nested statements are computed on first use, since the statements do not change after parsing
+	private transient volatile List<StatementObject> leaves;
+	private transient volatile List<CompositeStatementObject> innerNodes;
+	private transient volatile Map<String, List<OperationInvocation>> allMethodInvocations;
+	private transient volatile List<String> allVariables;
+	private transient volatile List<VariableDeclaration> allVariableDeclarations;
+	private transient volatile Map<String, VariableDeclaration> variableDeclarationMap;
 
 	public CompositeStatementObject(CompilationUnit cu, String filePath, Statement statement, int depth, CodeElementType codeElementType) {
 		super();
@@ -52,37 +62,75 @@ public class CompositeStatementObject extends AbstractStatement {
 		return expressionList;
 	}
 
+	//labeled statements keep their label, instead of sharing it through the name of CodeElementType.LABELED_STATEMENT
+	public void setLabel(String label) {
+		this.label = label;
+	}
+
+	@Override
+	public void clearArgumentization() {
+		super.clearArgumentization();
+		for(AbstractExpression expression : expressionList) {
+			expression.clearArgumentization();
+		}
+		for(AbstractStatement statement : statementList) {
+			statement.clearArgumentization();
+		}
+	}
+
 	public void addVariableDeclaration(VariableDeclaration declaration) {
 		this.variableDeclarations.add(declaration);
 	}
 
 	@Override
 	public List<StatementObject> getLeaves() {
-		List<StatementObject> leaves = new ArrayList<StatementObject>();
-		for(AbstractStatement statement : statementList) {
-			leaves.addAll(statement.getLeaves());
+		return new ArrayList<StatementObject>(leaves());
+	}
+
+	List<StatementObject> leaves() {
+		List<StatementObject> leaves = this.leaves;
+		if(leaves == null) {
+			leaves = new ArrayList<StatementObject>();
+			for(AbstractStatement statement : statementList) {
+				if(statement instanceof CompositeStatementObject) {
+					CompositeStatementObject composite = (CompositeStatementObject)statement;
+					leaves.addAll(composite.leaves());
+				}
+				else if(statement instanceof StatementObject) {
+					leaves.add((StatementObject)statement);
+				}
+			}
+			this.leaves = leaves;
 		}
 		return leaves;
 	}
 
 	public List<CompositeStatementObject> getInnerNodes() {
-		List<CompositeStatementObject> innerNodes = new ArrayList<CompositeStatementObject>();
-		for(AbstractStatement statement : statementList) {
-			if(statement instanceof CompositeStatementObject) {
-				CompositeStatementObject composite = (CompositeStatementObject)statement;
-				innerNodes.addAll(composite.getInnerNodes());
+		return new ArrayList<CompositeStatementObject>(innerNodes());
+	}
+
+	List<CompositeStatementObject> innerNodes() {
+		List<CompositeStatementObject> innerNodes = this.innerNodes;
+		if(innerNodes == null) {
+			innerNodes = new ArrayList<CompositeStatementObject>();
+			for(AbstractStatement statement : statementList) {
+				if(statement instanceof CompositeStatementObject) {
+					CompositeStatementObject composite = (CompositeStatementObject)statement;
+					innerNodes.addAll(composite.innerNodes());
+				}
 			}
+			innerNodes.add(this);
+			this.innerNodes = innerNodes;
 		}
-		innerNodes.add(this);
 		return innerNodes;
 	}
 
 	public boolean contains(AbstractCodeFragment fragment) {
 		if(fragment instanceof StatementObject) {
-			return getLeaves().contains(fragment);
+			return leaves().contains(fragment);
 		}
 		else if(fragment instanceof CompositeStatementObject) {
-			return getInnerNodes().contains(fragment);
+			return innerNodes().contains(fragment);
 		}
 		else if(fragment instanceof AbstractExpression) {
 			return getExpressions().contains(fragment);
@@ -92,7 +140,7 @@ public class CompositeStatementObject extends AbstractStatement {
 
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		sb.append(locationInfo.getCodeElementType().getName());
+		sb.append(label != null ? label : locationInfo.getCodeElementType().getName());
 		if(expressionList.size() > 0) {
 			sb.append("(");
 			for(int i=0; i<expressionList.size()-1; i++) {
@@ -289,12 +337,20 @@ public class CompositeStatementObject extends AbstractStatement {
 	}
 
 	public Map<String, List<OperationInvocation>> getAllMethodInvocations() {
-		Map<String, List<OperationInvocation>> map = new LinkedHashMap<String, List<OperationInvocation>>();
+		return new LinkedHashMap<String, List<OperationInvocation>>(allMethodInvocations());
+	}
+
+	Map<String, List<OperationInvocation>> allMethodInvocations() {
+		Map<String, List<OperationInvocation>> map = this.allMethodInvocations;
+		if(map != null) {
+			return map;
+		}
+		map = new LinkedHashMap<String, List<OperationInvocation>>();
 		map.putAll(getMethodInvocationMap());
 		for(AbstractStatement statement : statementList) {
 			if(statement instanceof CompositeStatementObject) {
 				CompositeStatementObject composite = (CompositeStatementObject)statement;
-				Map<String, List<OperationInvocation>> compositeMap = composite.getAllMethodInvocations();
+				Map<String, List<OperationInvocation>> compositeMap = composite.allMethodInvocations();
 				for(String key : compositeMap.keySet()) {
 					if(map.containsKey(key)) {
 						map.get(key).addAll(compositeMap.get(key));
@@ -321,7 +377,7 @@ public class CompositeStatementObject extends AbstractStatement {
 				}
 				for(LambdaExpressionObject lambda : statementObject.getLambdas()) {
 					if(lambda.getBody() != null) {
-						Map<String, List<OperationInvocation>> lambdaMap = lambda.getBody().getCompositeStatement().getAllMethodInvocations();
+						Map<String, List<OperationInvocation>> lambdaMap = lambda.getBody().getCompositeStatement().allMethodInvocations();
 						for(String key : lambdaMap.keySet()) {
 							if(map.containsKey(key)) {
 								map.get(key).addAll(lambdaMap.get(key));
@@ -336,6 +392,7 @@ public class CompositeStatementObject extends AbstractStatement {
 				}
 			}
 		}
+		this.allMethodInvocations = map;
 		return map;
 	}
 
@@ -372,45 +429,61 @@ public class CompositeStatementObject extends AbstractStatement {
 	}
 
 	public List<String> getAllVariables() {
-		List<String> variables = new ArrayList<String>();
-		variables.addAll(getVariables());
-		for(AbstractStatement statement : statementList) {
-			if(statement instanceof CompositeStatementObject) {
-				CompositeStatementObject composite = (CompositeStatementObject)statement;
-				variables.addAll(composite.getAllVariables());
-			}
-			else if(statement instanceof StatementObject) {
-				StatementObject statementObject = (StatementObject)statement;
-				variables.addAll(statementObject.getVariables());
+		return new ArrayList<String>(allVariables());
+	}
+
+	List<String> allVariables() {
+		List<String> variables = this.allVariables;
+		if(variables == null) {
+			variables = new ArrayList<String>();
+			variables.addAll(getVariables());
+			for(AbstractStatement statement : statementList) {
+				if(statement instanceof CompositeStatementObject) {
+					CompositeStatementObject composite = (CompositeStatementObject)statement;
+					variables.addAll(composite.allVariables());
+				}
+				else if(statement instanceof StatementObject) {
+					StatementObject statementObject = (StatementObject)statement;
+					variables.addAll(statementObject.getVariables());
+				}
 			}
+			this.allVariables = variables;
 		}
 		return variables;
 	}
 
 	public List<VariableDeclaration> getAllVariableDeclarations() {
-		List<VariableDeclaration> variableDeclarations = new ArrayList<VariableDeclaration>();
-		variableDeclarations.addAll(getVariableDeclarations());
-		for(AbstractStatement statement : statementList) {
-			if(statement instanceof CompositeStatementObject) {
-				CompositeStatementObject composite = (CompositeStatementObject)statement;
-				variableDeclarations.addAll(composite.getAllVariableDeclarations());
-			}
-			else if(statement instanceof StatementObject) {
-				StatementObject statementObject = (StatementObject)statement;
-				variableDeclarations.addAll(statementObject.getVariableDeclarations());
-				for(LambdaExpressionObject lambda : statementObject.getLambdas()) {
-					if(lambda.getBody() != null) {
-						variableDeclarations.addAll(lambda.getBody().getAllVariableDeclarations());
+		return new ArrayList<VariableDeclaration>(allVariableDeclarations());
+	}
+
+	List<VariableDeclaration> allVariableDeclarations() {
+		List<VariableDeclaration> variableDeclarations = this.allVariableDeclarations;
+		if(variableDeclarations == null) {
+			variableDeclarations = new ArrayList<VariableDeclaration>();
+			variableDeclarations.addAll(getVariableDeclarations());
+			for(AbstractStatement statement : statementList) {
+				if(statement instanceof CompositeStatementObject) {
+					CompositeStatementObject composite = (CompositeStatementObject)statement;
+					variableDeclarations.addAll(composite.allVariableDeclarations());
+				}
+				else if(statement instanceof StatementObject) {
+					StatementObject statementObject = (StatementObject)statement;
+					variableDeclarations.addAll(statementObject.getVariableDeclarations());
+					for(LambdaExpressionObject lambda : statementObject.getLambdas()) {
+						if(lambda.getBody() != null) {
+							variableDeclarations.addAll(lambda.getBody().getCompositeStatement().allVariableDeclarations());
+						}
 					}
 				}
 			}
+			this.allVariableDeclarations = variableDeclarations;
 		}
 		return variableDeclarations;
 	}
 
 	public List<VariableDeclaration> getVariableDeclarationsInScope(LocationInfo location) {
 		List<VariableDeclaration> variableDeclarations = new ArrayList<VariableDeclaration>();
-		for(VariableDeclaration variableDeclaration : getAllVariableDeclarations()) {
+		for(VariableDeclaration variableDeclaration : allVariableDeclarations()) {
 			if(variableDeclaration.getScope().subsumes(location)) {
 				variableDeclarations.add(variableDeclaration);
 			}
@@ -434,18 +507,23 @@ public class CompositeStatementObject extends AbstractStatement {
 	}
 
 	public VariableDeclaration getVariableDeclaration(String variableName) {
-		List<VariableDeclaration> variableDeclarations = getAllVariableDeclarations();
-		for(VariableDeclaration declaration : variableDeclarations) {
-			if(declaration.getVariableName().equals(variableName)) {
-				return declaration;
+		Map<String, VariableDeclaration> variableDeclarationMap = this.variableDeclarationMap;
+		if(variableDeclarationMap == null) {
+			variableDeclarationMap = new HashMap<String, VariableDeclaration>();
+			for(VariableDeclaration declaration : allVariableDeclarations()) {
+				//the first declaration of a variable name is returned, as when the declarations are searched in order
+				if(!variableDeclarationMap.containsKey(declaration.getVariableName())) {
+					variableDeclarationMap.put(declaration.getVariableName(), declaration);
+				}
 			}
+			this.variableDeclarationMap = variableDeclarationMap;
 		}
-		return null;
+		return variableDeclarationMap.get(variableName);
 	}
 
 	public Map<String, Set<String>> aliasedAttributes() {
 		Map<String, Set<String>> map = new LinkedHashMap<String, Set<String>>();
-		for(StatementObject statement : getLeaves()) {
+		for(StatementObject statement : leaves()) {
 			String s = statement.getString();
 			if(s.startsWith("this.") && s.endsWith(";\n")) {
 				String firstLine = s.substring(0, s.indexOf("\n"));
@@ -487,7 +565,7 @@ public class CompositeStatementObject extends AbstractStatement {
 	}
 
 	public CompositeStatementObject loopWithVariables(String currentElementName, String collectionName) {
-		for(CompositeStatementObject innerNode : getInnerNodes()) {
+		for(CompositeStatementObject innerNode : innerNodes()) {
 			if(innerNode.getLocationInfo().getCodeElementType().equals(CodeElementType.ENHANCED_FOR_STATEMENT)) {
 				boolean currentElementNameMatched = false;
 				for(VariableDeclaration declaration : innerNode.getVariableDeclarations()) {
@@ -517,7 +595,7 @@ public class CompositeStatementObject extends AbstractStatement {
 					}
 				}
 				boolean currentElementNameMatched = false;
-				for(StatementObject statement : innerNode.getLeaves()) {
+				for(StatementObject statement : innerNode.leaves()) {
 					VariableDeclaration variableDeclaration = statement.getVariableDeclaration(currentElementName);
 					if(variableDeclaration != null && statement.getVariables().contains(collectionName)) {
 						currentElementNameMatched = true;
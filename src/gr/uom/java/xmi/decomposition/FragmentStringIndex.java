@@ -0,0 +1,77 @@
+package gr.uom.java.xmi.decomposition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Indexes fragments by their string and argumentized string, so that the fragments that may exactly match another fragment
+ * are found without comparing the fragment with all of them.
+ */
+class FragmentStringIndex<T extends AbstractCodeFragment> {
+	private final Map<T, Integer> positions = new IdentityHashMap<T, Integer>();
+	private final Map<String, List<T>> fragmentsByString = new HashMap<String, List<T>>();
+	private final Map<String, List<T>> fragmentsByArgumentizedString = new HashMap<String, List<T>>();
+	private final Map<String, List<T>> fragmentsByArgumentizedStringWithoutReturn = new HashMap<String, List<T>>();
+
+	FragmentStringIndex(List<? extends T> fragments) {
+		for(T fragment : fragments) {
+			if(!positions.containsKey(fragment)) {
+				positions.put(fragment, positions.size());
+				add(fragmentsByString, fragment.getString(), fragment);
+				String argumentizedString = fragment.getArgumentizedString();
+				add(fragmentsByArgumentizedString, argumentizedString, fragment);
+				if(fragment instanceof StatementObject) {
+					String argumentizedStringWithoutReturn = fragment.getArgumentizedStringWithoutReturn();
+					if(!argumentizedStringWithoutReturn.equals(argumentizedString)) {
+						add(fragmentsByArgumentizedStringWithoutReturn, argumentizedStringWithoutReturn, fragment);
+					}
+				}
+			}
+		}
+	}
+
+	//returns, in their original order, the indexed fragments having the same string or the same argumentized string with the given fragment,
+	//also when the return keyword is removed from one of the two, so that the caller can apply the exact matching conditions only on them
+	List<T> candidates(AbstractCodeFragment fragment) {
+		TreeMap<Integer, T> candidates = new TreeMap<Integer, T>();
+		String argumentizedString = fragment.getArgumentizedString();
+		collect(fragmentsByString.get(fragment.getString()), candidates);
+		collect(fragmentsByArgumentizedString.get(argumentizedString), candidates);
+		collect(fragmentsByArgumentizedStringWithoutReturn.get(argumentizedString), candidates);
+		if(fragment instanceof StatementObject) {
+			String argumentizedStringWithoutReturn = fragment.getArgumentizedStringWithoutReturn();
+			if(!argumentizedStringWithoutReturn.equals(argumentizedString)) {
+				collect(fragmentsByArgumentizedString.get(argumentizedStringWithoutReturn), candidates);
+			}
+		}
+		return new ArrayList<T>(candidates.values());
+	}
+
+	void remove(AbstractCodeFragment fragment) {
+		positions.remove(fragment);
+	}
+
+	private void collect(List<T> fragments, TreeMap<Integer, T> candidates) {
+		if(fragments != null) {
+			for(T fragment : fragments) {
+				Integer position = positions.get(fragment);
+				if(position != null) {
+					candidates.put(position, fragment);
+				}
+			}
+		}
+	}
+
+	private static <T> void add(Map<String, List<T>> map, String key, T fragment) {
+		List<T> fragments = map.get(key);
+		if(fragments == null) {
+			fragments = new ArrayList<T>();
+			map.put(key, fragments);
+		}
+		fragments.add(fragment);
+	}
+}
@@ -1,5 +1,7 @@
 package gr.uom.java.xmi.decomposition;
 
+import java.io.Serializable;
+
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.Expression;
@@ -10,7 +12,8 @@ import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.diff.CodeRange;
 import gr.uom.java.xmi.LocationInfoProvider;
 
-public class LambdaExpressionObject implements LocationInfoProvider {
+public class LambdaExpressionObject implements LocationInfoProvider, Serializable {
+	private static final long serialVersionUID = 1L;
 	private LocationInfo locationInfo;
 	private OperationBody body;
 	private AbstractExpression expression;
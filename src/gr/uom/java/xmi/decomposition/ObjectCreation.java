@@ -14,6 +14,7 @@ import gr.uom.java.xmi.UMLType;
 import gr.uom.java.xmi.diff.StringDistance;
 
 public class ObjectCreation extends AbstractCall {
+	private static final long serialVersionUID = 1L;
 	private UMLType type;
 	private String anonymousClassDeclaration;
 	private boolean isArray = false;
@@ -1,5 +1,6 @@
 package gr.uom.java.xmi.decomposition;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -36,9 +37,11 @@ import org.eclipse.jdt.core.dom.WhileStatement;
 import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
 
-public class OperationBody {
+public class OperationBody implements Serializable {
+	private static final long serialVersionUID = 1L;
 
 	private CompositeStatementObject compositeStatement;
+	private int bodyHashCode;
 
 	public OperationBody(CompilationUnit cu, String filePath, Block methodBody) {
 		this.compositeStatement = new CompositeStatementObject(cu, filePath, methodBody, 0, CodeElementType.BLOCK);
@@ -46,6 +49,50 @@ public class OperationBody {
 		for(Statement statement : statements) {
 			processStatement(cu, filePath, compositeStatement, statement);
 		}
+		this.bodyHashCode = hashCode(compositeStatement);
+	}
+
+	public int getBodyHashCode() {
+		return bodyHashCode;
+	}
+
+	//the hash codes tell most of the different bodies apart, while the statements of the bodies with the same hash code are compared one by one
+	public boolean isIdenticalTo(OperationBody body) {
+		return bodyHashCode == body.bodyHashCode && identical(compositeStatement, body.compositeStatement);
+	}
+
+	private static int hashCode(CompositeStatementObject composite) {
+		int hashCode = composite.getString().hashCode();
+		for(AbstractStatement statement : composite.getStatements()) {
+			if(statement instanceof CompositeStatementObject) {
+				hashCode = 31 * hashCode + hashCode((CompositeStatementObject)statement);
+			}
+			else {
+				hashCode = 31 * hashCode + statement.getString().hashCode();
+			}
+		}
+		return 31 * hashCode + composite.getStatements().size();
+	}
+
+	private static boolean identical(AbstractStatement statement1, AbstractStatement statement2) {
+		if(statement1.getClass() != statement2.getClass() || statement1.getDepth() != statement2.getDepth() || statement1.getIndex() != statement2.getIndex() ||
+				!statement1.getLocationInfo().getCodeElementType().equals(statement2.getLocationInfo().getCodeElementType()) ||
+				!statement1.getString().equals(statement2.getString())) {
+			return false;
+		}
+		if(statement1 instanceof CompositeStatementObject) {
+			List<AbstractStatement> statements1 = ((CompositeStatementObject)statement1).getStatements();
+			List<AbstractStatement> statements2 = ((CompositeStatementObject)statement2).getStatements();
+			if(statements1.size() != statements2.size()) {
+				return false;
+			}
+			for(int i = 0; i < statements1.size(); i++) {
+				if(!identical(statements1.get(i), statements2.get(i))) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 
 	public int statementCount() {
@@ -62,7 +109,7 @@ public class OperationBody {
 
 	public List<OperationInvocation> getAllOperationInvocations() {
 		List<OperationInvocation> invocations = new ArrayList<OperationInvocation>();
-		Map<String, List<OperationInvocation>> invocationMap = compositeStatement.getAllMethodInvocations();
+		Map<String, List<OperationInvocation>> invocationMap = compositeStatement.allMethodInvocations();
 		for(String key : invocationMap.keySet()) {
 			invocations.addAll(invocationMap.get(key));
 		}
@@ -74,15 +121,15 @@ public class OperationBody {
 	}
 
 	public List<String> getAllVariables() {
-		return new ArrayList<String>(compositeStatement.getAllVariables());
+		return new ArrayList<String>(compositeStatement.allVariables());
 	}
 
 	public List<VariableDeclaration> getAllVariableDeclarations() {
-		return new ArrayList<VariableDeclaration>(compositeStatement.getAllVariableDeclarations());
+		return new ArrayList<VariableDeclaration>(compositeStatement.allVariableDeclarations());
 	}
 
 	public List<VariableDeclaration> getVariableDeclarationsInScope(LocationInfo location) {
-		return new ArrayList<VariableDeclaration>(compositeStatement.getVariableDeclarationsInScope(location));
+		return compositeStatement.getVariableDeclarationsInScope(location);
 	}
 
 	public VariableDeclaration getVariableDeclaration(String variableName) {
@@ -192,7 +239,8 @@ public class OperationBody {
 		else if(statement instanceof LabeledStatement) {
 			LabeledStatement labeledStatement = (LabeledStatement)statement;
 			SimpleName label = labeledStatement.getLabel();
-			CompositeStatementObject child = new CompositeStatementObject(cu, filePath, labeledStatement, parent.getDepth()+1, CodeElementType.LABELED_STATEMENT.setName(label.getIdentifier()));
+			CompositeStatementObject child = new CompositeStatementObject(cu, filePath, labeledStatement, parent.getDepth()+1, CodeElementType.LABELED_STATEMENT);
+			child.setLabel(label.getIdentifier());
 			parent.addStatement(child);
 			processStatement(cu, filePath, child, labeledStatement.getBody());
 		}
@@ -20,6 +20,7 @@ import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.diff.CodeRange;
 
 public class StatementObject extends AbstractStatement {
+	private static final long serialVersionUID = 1L;
 	
 	private String statement;
 	private LocationInfo locationInfo;
@@ -0,0 +1,50 @@
+package gr.uom.java.xmi.decomposition;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the tokens of a code fragment, such as its variables, types and literals, as a sorted array of distinct int ids,
+ * so that two fragments without any common token are told apart before the sets of their token strings are intersected.
+ * The id of a token is the hash code of its string, which does not depend on the model or the process the fragment comes from.
+ * Two fragments can have a common token only if their ids intersect, but ids may intersect without a common token,
+ * so the tokens are still intersected as strings when they do.
+ */
+class TokenIds {
+	static final int[] EMPTY = new int[0];
+
+	static int[] of(List<String> tokens) {
+		if(tokens.isEmpty()) {
+			return EMPTY;
+		}
+		int[] ids = new int[tokens.size()];
+		for(int i = 0; i < ids.length; i++) {
+			ids[i] = tokens.get(i).hashCode();
+		}
+		Arrays.sort(ids);
+		int distinct = 1;
+		for(int i = 1; i < ids.length; i++) {
+			if(ids[i] != ids[distinct - 1]) {
+				ids[distinct++] = ids[i];
+			}
+		}
+		return distinct < ids.length ? Arrays.copyOf(ids, distinct) : ids;
+	}
+
+	static boolean mayIntersect(int[] ids1, int[] ids2) {
+		int i = 0;
+		int j = 0;
+		while(i < ids1.length && j < ids2.length) {
+			if(ids1[i] < ids2[j]) {
+				i++;
+			}
+			else if(ids1[i] > ids2[j]) {
+				j++;
+			}
+			else {
+				return true;
+			}
+		}
+		return false;
+	}
+}
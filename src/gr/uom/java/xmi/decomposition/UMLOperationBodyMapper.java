@@ -46,6 +46,7 @@ import java.util.regex.Pattern;
 
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.util.CommitBudget;
 import org.refactoringminer.util.PrefixSuffixUtils;
 
 public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper> {
@@ -124,7 +125,12 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					leave2.replaceParametersWithArguments(parameterToArgumentMap2);
 				}
 			}
-			processLeaves(leaves1, leaves2, new LinkedHashMap<String, String>());
+			if(body1.isIdenticalTo(body2)) {
+				mapIdenticalLeaves(leaves1, leaves2);
+			}
+			else {
+				processLeaves(leaves1, leaves2, new LinkedHashMap<String, String>());
+			}
 			
 			List<CompositeStatementObject> innerNodes1 = composite1.getInnerNodes();
 			innerNodes1.remove(composite1);
@@ -933,12 +939,12 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		List<UMLOperation> removedOperations = classDiff != null ? classDiff.getRemovedOperations() : new ArrayList<UMLOperation>();
 		List<UMLOperation> addedOperations = classDiff != null ? classDiff.getAddedOperations() : new ArrayList<UMLOperation>();
 		if(innerNodes1.size() <= innerNodes2.size()) {
+			FragmentStringIndex<CompositeStatementObject> innerNodeIndex2 = new FragmentStringIndex<CompositeStatementObject>(innerNodes2);
 			//exact string+depth matching - inner nodes
 			for(ListIterator<CompositeStatementObject> innerNodeIterator1 = innerNodes1.listIterator(); innerNodeIterator1.hasNext();) {
 				CompositeStatementObject statement1 = innerNodeIterator1.next();
 				TreeSet<CompositeStatementObjectMapping> mappingSet = new TreeSet<CompositeStatementObjectMapping>();
-				for(ListIterator<CompositeStatementObject> innerNodeIterator2 = innerNodes2.listIterator(); innerNodeIterator2.hasNext();) {
-					CompositeStatementObject statement2 = innerNodeIterator2.next();
+				for(CompositeStatementObject statement2 : innerNodeIndex2.candidates(statement1)) {
 					double score = computeScore(statement1, statement2, removedOperations, addedOperations);
 					if((statement1.getString().equals(statement2.getString()) || statement1.getArgumentizedString().equals(statement2.getArgumentizedString())) &&
 							statement1.getDepth() == statement2.getDepth() &&
@@ -951,6 +957,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					CompositeStatementObjectMapping minStatementMapping = mappingSet.first();
 					mappings.add(minStatementMapping);
 					innerNodes2.remove(minStatementMapping.getFragment2());
+					innerNodeIndex2.remove(minStatementMapping.getFragment2());
 					innerNodeIterator1.remove();
 				}
 			}
@@ -959,8 +966,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			for(ListIterator<CompositeStatementObject> innerNodeIterator1 = innerNodes1.listIterator(); innerNodeIterator1.hasNext();) {
 				CompositeStatementObject statement1 = innerNodeIterator1.next();
 				TreeSet<CompositeStatementObjectMapping> mappingSet = new TreeSet<CompositeStatementObjectMapping>();
-				for(ListIterator<CompositeStatementObject> innerNodeIterator2 = innerNodes2.listIterator(); innerNodeIterator2.hasNext();) {
-					CompositeStatementObject statement2 = innerNodeIterator2.next();
+				for(CompositeStatementObject statement2 : innerNodeIndex2.candidates(statement1)) {
 					double score = computeScore(statement1, statement2, removedOperations, addedOperations);
 					if((statement1.getString().equals(statement2.getString()) || statement1.getArgumentizedString().equals(statement2.getArgumentizedString())) &&
 							(score > 0 || Math.max(statement1.getStatements().size(), statement2.getStatements().size()) == 0)) {
@@ -972,6 +978,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					CompositeStatementObjectMapping minStatementMapping = mappingSet.first();
 					mappings.add(minStatementMapping);
 					innerNodes2.remove(minStatementMapping.getFragment2());
+					innerNodeIndex2.remove(minStatementMapping.getFragment2());
 					innerNodeIterator1.remove();
 				}
 			}
@@ -982,6 +989,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				TreeSet<CompositeStatementObjectMapping> mappingSet = new TreeSet<CompositeStatementObjectMapping>();
 				for(ListIterator<CompositeStatementObject> innerNodeIterator2 = innerNodes2.listIterator(); innerNodeIterator2.hasNext();) {
 					CompositeStatementObject statement2 = innerNodeIterator2.next();
+					CommitBudget.check();
 					
 					ReplacementInfo replacementInfo = initializeReplacementInfo(statement1, statement2, innerNodes1, innerNodes2);
 					Set<Replacement> replacements = findReplacementsWithExactMatching(statement1, statement2, parameterToArgumentMap, replacementInfo);
@@ -1008,12 +1016,12 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			}
 		}
 		else {
+			FragmentStringIndex<CompositeStatementObject> innerNodeIndex1 = new FragmentStringIndex<CompositeStatementObject>(innerNodes1);
 			//exact string+depth matching - inner nodes
 			for(ListIterator<CompositeStatementObject> innerNodeIterator2 = innerNodes2.listIterator(); innerNodeIterator2.hasNext();) {
 				CompositeStatementObject statement2 = innerNodeIterator2.next();
 				TreeSet<CompositeStatementObjectMapping> mappingSet = new TreeSet<CompositeStatementObjectMapping>();
-				for(ListIterator<CompositeStatementObject> innerNodeIterator1 = innerNodes1.listIterator(); innerNodeIterator1.hasNext();) {
-					CompositeStatementObject statement1 = innerNodeIterator1.next();
+				for(CompositeStatementObject statement1 : innerNodeIndex1.candidates(statement2)) {
 					double score = computeScore(statement1, statement2, removedOperations, addedOperations);
 					if((statement1.getString().equals(statement2.getString()) || statement1.getArgumentizedString().equals(statement2.getArgumentizedString())) &&
 							statement1.getDepth() == statement2.getDepth() &&
@@ -1026,6 +1034,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					CompositeStatementObjectMapping minStatementMapping = mappingSet.first();
 					mappings.add(minStatementMapping);
 					innerNodes1.remove(minStatementMapping.getFragment1());
+					innerNodeIndex1.remove(minStatementMapping.getFragment1());
 					innerNodeIterator2.remove();
 				}
 			}
@@ -1034,8 +1043,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			for(ListIterator<CompositeStatementObject> innerNodeIterator2 = innerNodes2.listIterator(); innerNodeIterator2.hasNext();) {
 				CompositeStatementObject statement2 = innerNodeIterator2.next();
 				TreeSet<CompositeStatementObjectMapping> mappingSet = new TreeSet<CompositeStatementObjectMapping>();
-				for(ListIterator<CompositeStatementObject> innerNodeIterator1 = innerNodes1.listIterator(); innerNodeIterator1.hasNext();) {
-					CompositeStatementObject statement1 = innerNodeIterator1.next();
+				for(CompositeStatementObject statement1 : innerNodeIndex1.candidates(statement2)) {
 					double score = computeScore(statement1, statement2, removedOperations, addedOperations);
 					if((statement1.getString().equals(statement2.getString()) || statement1.getArgumentizedString().equals(statement2.getArgumentizedString())) &&
 							(score > 0 || Math.max(statement1.getStatements().size(), statement2.getStatements().size()) == 0)) {
@@ -1047,6 +1055,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					CompositeStatementObjectMapping minStatementMapping = mappingSet.first();
 					mappings.add(minStatementMapping);
 					innerNodes1.remove(minStatementMapping.getFragment1());
+					innerNodeIndex1.remove(minStatementMapping.getFragment1());
 					innerNodeIterator2.remove();
 				}
 			}
@@ -1057,6 +1066,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				TreeSet<CompositeStatementObjectMapping> mappingSet = new TreeSet<CompositeStatementObjectMapping>();
 				for(ListIterator<CompositeStatementObject> innerNodeIterator1 = innerNodes1.listIterator(); innerNodeIterator1.hasNext();) {
 					CompositeStatementObject statement1 = innerNodeIterator1.next();
+					CommitBudget.check();
 					
 					ReplacementInfo replacementInfo = initializeReplacementInfo(statement1, statement2, innerNodes1, innerNodes2);
 					Set<Replacement> replacements = findReplacementsWithExactMatching(statement1, statement2, parameterToArgumentMap, replacementInfo);
@@ -1110,12 +1120,12 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			Map<String, String> parameterToArgumentMap) throws RefactoringMinerTimedOutException {
 		List<TreeSet<LeafMapping>> postponedMappingSets = new ArrayList<TreeSet<LeafMapping>>();
 		if(leaves1.size() <= leaves2.size()) {
+			FragmentStringIndex<AbstractCodeFragment> leafIndex2 = new FragmentStringIndex<AbstractCodeFragment>(leaves2);
 			//exact string+depth matching - leaf nodes
 			for(ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext();) {
 				AbstractCodeFragment leaf1 = leafIterator1.next();
 				TreeSet<LeafMapping> mappingSet = new TreeSet<LeafMapping>();
-				for(ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext();) {
-					AbstractCodeFragment leaf2 = leafIterator2.next();
+				for(AbstractCodeFragment leaf2 : leafIndex2.candidates(leaf1)) {
 					String argumentizedString1 = preprocessInput1(leaf1, leaf2);
 					String argumentizedString2 = preprocessInput2(leaf1, leaf2);
 					if((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2)) && leaf1.getDepth() == leaf2.getDepth()) {
@@ -1127,6 +1137,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					LeafMapping minStatementMapping = mappingSet.first();
 					mappings.add(minStatementMapping);
 					leaves2.remove(minStatementMapping.getFragment2());
+					leafIndex2.remove(minStatementMapping.getFragment2());
 					leafIterator1.remove();
 				}
 			}
@@ -1135,8 +1146,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			for(ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext();) {
 				AbstractCodeFragment leaf1 = leafIterator1.next();
 				TreeSet<LeafMapping> mappingSet = new TreeSet<LeafMapping>();
-				for(ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext();) {
-					AbstractCodeFragment leaf2 = leafIterator2.next();
+				for(AbstractCodeFragment leaf2 : leafIndex2.candidates(leaf1)) {
 					String argumentizedString1 = preprocessInput1(leaf1, leaf2);
 					String argumentizedString2 = preprocessInput2(leaf1, leaf2);
 					if((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2))) {
@@ -1148,6 +1158,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					LeafMapping minStatementMapping = mappingSet.first();
 					mappings.add(minStatementMapping);
 					leaves2.remove(minStatementMapping.getFragment2());
+					leafIndex2.remove(minStatementMapping.getFragment2());
 					leafIterator1.remove();
 				}
 			}
@@ -1158,6 +1169,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				TreeSet<LeafMapping> mappingSet = new TreeSet<LeafMapping>();
 				for(ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext();) {
 					AbstractCodeFragment leaf2 = leafIterator2.next();
+					CommitBudget.check();
 					
 					ReplacementInfo replacementInfo = initializeReplacementInfo(leaf1, leaf2, leaves1, leaves2);
 					Set<Replacement> replacements = findReplacementsWithExactMatching(leaf1, leaf2, parameterToArgumentMap, replacementInfo);
@@ -1208,12 +1220,12 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			}
 		}
 		else {
+			FragmentStringIndex<AbstractCodeFragment> leafIndex1 = new FragmentStringIndex<AbstractCodeFragment>(leaves1);
 			//exact string+depth matching - leaf nodes
 			for(ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext();) {
 				AbstractCodeFragment leaf2 = leafIterator2.next();
 				TreeSet<LeafMapping> mappingSet = new TreeSet<LeafMapping>();
-				for(ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext();) {
-					AbstractCodeFragment leaf1 = leafIterator1.next();
+				for(AbstractCodeFragment leaf1 : leafIndex1.candidates(leaf2)) {
 					String argumentizedString1 = preprocessInput1(leaf1, leaf2);
 					String argumentizedString2 = preprocessInput2(leaf1, leaf2);
 					if((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2)) && leaf1.getDepth() == leaf2.getDepth()) {
@@ -1225,6 +1237,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					LeafMapping minStatementMapping = mappingSet.first();
 					mappings.add(minStatementMapping);
 					leaves1.remove(minStatementMapping.getFragment1());
+					leafIndex1.remove(minStatementMapping.getFragment1());
 					leafIterator2.remove();
 				}
 			}
@@ -1233,8 +1246,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			for(ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext();) {
 				AbstractCodeFragment leaf2 = leafIterator2.next();
 				TreeSet<LeafMapping> mappingSet = new TreeSet<LeafMapping>();
-				for(ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext();) {
-					AbstractCodeFragment leaf1 = leafIterator1.next();
+				for(AbstractCodeFragment leaf1 : leafIndex1.candidates(leaf2)) {
 					String argumentizedString1 = preprocessInput1(leaf1, leaf2);
 					String argumentizedString2 = preprocessInput2(leaf1, leaf2);
 					if((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2))) {
@@ -1246,6 +1258,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					LeafMapping minStatementMapping = mappingSet.first();
 					mappings.add(minStatementMapping);
 					leaves1.remove(minStatementMapping.getFragment1());
+					leafIndex1.remove(minStatementMapping.getFragment1());
 					leafIterator2.remove();
 				}
 			}
@@ -1256,6 +1269,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				TreeSet<LeafMapping> mappingSet = new TreeSet<LeafMapping>();
 				for(ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext();) {
 					AbstractCodeFragment leaf1 = leafIterator1.next();
+					CommitBudget.check();
 					
 					ReplacementInfo replacementInfo = initializeReplacementInfo(leaf1, leaf2, leaves1, leaves2);
 					Set<Replacement> replacements = findReplacementsWithExactMatching(leaf1, leaf2, parameterToArgumentMap, replacementInfo);
@@ -1476,6 +1490,17 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		return null;
 	}
 
+	//for identical bodies, the exact string+depth matching of processLeaves maps every leaf to the leaf at the same position,
+	//since no other leaf has a smaller distance, depth difference, index difference or parent edit distance,
+	//and the earlier leaves with the same string are already mapped to their own counterparts
+	private void mapIdenticalLeaves(List<StatementObject> leaves1, List<StatementObject> leaves2) {
+		for(int i = 0; i < leaves1.size(); i++) {
+			mappings.add(createLeafMapping(leaves1.get(i), leaves2.get(i), new LinkedHashMap<String, String>()));
+		}
+		leaves1.clear();
+		leaves2.clear();
+	}
+
 	private LeafMapping createLeafMapping(AbstractCodeFragment leaf1, AbstractCodeFragment leaf2, Map<String, String> parameterToArgumentMap) {
 		UMLOperation operation1 = codeFragmentOperationMap1.containsKey(leaf1) ? codeFragmentOperationMap1.get(leaf1) : this.operation1;
 		UMLOperation operation2 = codeFragmentOperationMap2.containsKey(leaf2) ? codeFragmentOperationMap2.get(leaf2) : this.operation2;
@@ -1497,15 +1522,12 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		return preprocessInput(leaf2, leaf1);
 	}
 
+	//returns the memoized strings of the fragments, so that their hash codes are also computed once
 	private String preprocessInput(AbstractCodeFragment leaf1, AbstractCodeFragment leaf2) {
-		String argumentizedString = new String(leaf1.getArgumentizedString());
 		if (leaf1 instanceof StatementObject && leaf2 instanceof AbstractExpression) {
-			if (argumentizedString.startsWith("return ") && argumentizedString.endsWith(";\n")) {
-				argumentizedString = argumentizedString.substring("return ".length(),
-						argumentizedString.lastIndexOf(";\n"));
-			}
+			return leaf1.getArgumentizedStringWithoutReturn();
 		}
-		return argumentizedString;
+		return leaf1.getArgumentizedString();
 	}
 
 	private static class ReplacementInfo {
@@ -1587,8 +1609,11 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		OperationInvocation invocationCoveringTheEntireStatement2 = statement2.invocationCoveringEntireFragment();
 		Set<String> variables1 = new LinkedHashSet<String>(statement1.getVariables());
 		Set<String> variables2 = new LinkedHashSet<String>(statement2.getVariables());
-		Set<String> variableIntersection = new LinkedHashSet<String>(variables1);
-		variableIntersection.retainAll(variables2);
+		Set<String> variableIntersection = new LinkedHashSet<String>();
+		if(TokenIds.mayIntersect(statement1.getVariableIds(), statement2.getVariableIds())) {
+			variableIntersection.addAll(variables1);
+			variableIntersection.retainAll(variables2);
+		}
 		// ignore the variables in the intersection that also appear with "this." prefix in the sets of variables
 		// ignore the variables in the intersection that are static fields
 		Set<String> variablesToBeRemovedFromTheIntersection = new LinkedHashSet<String>();
@@ -1647,7 +1672,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		
 		Set<String> arguments1 = new LinkedHashSet<String>(statement1.getArguments());
 		Set<String> arguments2 = new LinkedHashSet<String>(statement2.getArguments());
-		removeCommonElements(arguments1, arguments2);
+		removeCommonElements(arguments1, arguments2, statement1.getArgumentIds(), statement2.getArgumentIds());
 		
 		if(!argumentsWithIdenticalMethodCalls(arguments1, arguments2, variables1, variables2)) {
 			findReplacements(arguments1, variables2, replacementInfo, ReplacementType.ARGUMENT_REPLACED_WITH_VARIABLE);
@@ -1723,7 +1748,9 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		
 		Set<String> types1 = new LinkedHashSet<String>(statement1.getTypes());
 		Set<String> types2 = new LinkedHashSet<String>(statement2.getTypes());
-		removeCommonTypes(types1, types2, statement1.getTypes(), statement2.getTypes());
+		if(TokenIds.mayIntersect(statement1.getTypeIds(), statement2.getTypeIds())) {
+			removeCommonTypes(types1, types2, statement1.getTypes(), statement2.getTypes());
+		}
 		
 		// replace variables with the corresponding arguments in object creations
 		replaceVariablesWithArguments(creationMap1, creations1, parameterToArgumentMap);
@@ -1764,27 +1791,27 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		
 		Set<String> stringLiterals1 = new LinkedHashSet<String>(statement1.getStringLiterals());
 		Set<String> stringLiterals2 = new LinkedHashSet<String>(statement2.getStringLiterals());
-		removeCommonElements(stringLiterals1, stringLiterals2);
+		removeCommonElements(stringLiterals1, stringLiterals2, statement1.getStringLiteralIds(), statement2.getStringLiteralIds());
 		
 		Set<String> numberLiterals1 = new LinkedHashSet<String>(statement1.getNumberLiterals());
 		Set<String> numberLiterals2 = new LinkedHashSet<String>(statement2.getNumberLiterals());
-		removeCommonElements(numberLiterals1, numberLiterals2);
+		removeCommonElements(numberLiterals1, numberLiterals2, statement1.getNumberLiteralIds(), statement2.getNumberLiteralIds());
 		
 		Set<String> booleanLiterals1 = new LinkedHashSet<String>(statement1.getBooleanLiterals());
 		Set<String> booleanLiterals2 = new LinkedHashSet<String>(statement2.getBooleanLiterals());
-		removeCommonElements(booleanLiterals1, booleanLiterals2);
+		removeCommonElements(booleanLiterals1, booleanLiterals2, statement1.getBooleanLiteralIds(), statement2.getBooleanLiteralIds());
 		
 		Set<String> infixOperators1 = new LinkedHashSet<String>(statement1.getInfixOperators());
 		Set<String> infixOperators2 = new LinkedHashSet<String>(statement2.getInfixOperators());
-		removeCommonElements(infixOperators1, infixOperators2);
+		removeCommonElements(infixOperators1, infixOperators2, statement1.getInfixOperatorIds(), statement2.getInfixOperatorIds());
 		
 		Set<String> arrayAccesses1 = new LinkedHashSet<String>(statement1.getArrayAccesses());
 		Set<String> arrayAccesses2 = new LinkedHashSet<String>(statement2.getArrayAccesses());
-		removeCommonElements(arrayAccesses1, arrayAccesses2);
+		removeCommonElements(arrayAccesses1, arrayAccesses2, statement1.getArrayAccessIds(), statement2.getArrayAccessIds());
 		
 		Set<String> prefixExpressions1 = new LinkedHashSet<String>(statement1.getPrefixExpressions());
 		Set<String> prefixExpressions2 = new LinkedHashSet<String>(statement2.getPrefixExpressions());
-		removeCommonElements(prefixExpressions1, prefixExpressions2);
+		removeCommonElements(prefixExpressions1, prefixExpressions2, statement1.getPrefixExpressionIds(), statement2.getPrefixExpressionIds());
 		
 		//perform type replacements
 		findReplacements(types1, types2, replacementInfo, ReplacementType.TYPE);
@@ -1813,9 +1840,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				TreeMap<Double, Replacement> replacementMap = new TreeMap<Double, Replacement>();
 				int minDistance = replacementInfo.getRawDistance();
 				for(String s2 : variablesAndMethodInvocations2) {
-					if(Thread.interrupted()) {
-						throw new RefactoringMinerTimedOutException();
-					}
+					CommitBudget.check();
 					String temp = ReplacementUtil.performReplacement(replacementInfo.getArgumentizedString1(), replacementInfo.getArgumentizedString2(), s1, s2);
 					int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2(), minDistance);
 					boolean multipleInstances = ReplacementUtil.countInstances(temp, s2) > 1;
@@ -2632,6 +2657,13 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		strings2.removeAll(intersection);
 	}
 
+	//the sets still hold all the tokens of their fragments, so they have no common elements when the ids of the tokens do not intersect
+	private void removeCommonElements(Set<String> strings1, Set<String> strings2, int[] ids1, int[] ids2) {
+		if(TokenIds.mayIntersect(ids1, ids2)) {
+			removeCommonElements(strings1, strings2);
+		}
+	}
+
 	private void removeCommonTypes(Set<String> strings1, Set<String> strings2, List<String> types1, List<String> types2) {
 		if(types1.size() == types2.size()) {
 			Set<String> removeFromIntersection = new LinkedHashSet<String>();
@@ -3726,9 +3758,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			for(String s1 : strings1) {
 				TreeMap<Double, Replacement> replacementMap = new TreeMap<Double, Replacement>();
 				for(String s2 : strings2) {
-					if(Thread.interrupted()) {
-						throw new RefactoringMinerTimedOutException();
-					}
+					CommitBudget.check();
 					boolean containsMethodSignatureOfAnonymousClass1 = containsMethodSignatureOfAnonymousClass(s1);
 					boolean containsMethodSignatureOfAnonymousClass2 = containsMethodSignatureOfAnonymousClass(s2);
 					if(containsMethodSignatureOfAnonymousClass1 != containsMethodSignatureOfAnonymousClass2 &&
@@ -3736,7 +3766,8 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 						continue;
 					}
 					String temp = ReplacementUtil.performReplacement(replacementInfo.getArgumentizedString1(), replacementInfo.getArgumentizedString2(), s1, s2);
-					int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2());
+					//only the replacements reducing the distance are kept
+					int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2(), replacementInfo.getRawDistance() - 1);
 					if(distanceRaw >= 0 && distanceRaw < replacementInfo.getRawDistance()) {
 						Replacement replacement = new Replacement(s1, s2, type);
 						double distancenormalized = (double)distanceRaw/(double)Math.max(temp.length(), replacementInfo.getArgumentizedString2().length());
@@ -3775,9 +3806,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			for(String s2 : strings2) {
 				TreeMap<Double, Replacement> replacementMap = new TreeMap<Double, Replacement>();
 				for(String s1 : strings1) {
-					if(Thread.interrupted()) {
-						throw new RefactoringMinerTimedOutException();
-					}
+					CommitBudget.check();
 					boolean containsMethodSignatureOfAnonymousClass1 = containsMethodSignatureOfAnonymousClass(s1);
 					boolean containsMethodSignatureOfAnonymousClass2 = containsMethodSignatureOfAnonymousClass(s2);
 					if(containsMethodSignatureOfAnonymousClass1 != containsMethodSignatureOfAnonymousClass2 &&
@@ -3785,7 +3814,8 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 						continue;
 					}
 					String temp = ReplacementUtil.performReplacement(replacementInfo.getArgumentizedString1(), replacementInfo.getArgumentizedString2(), s1, s2);
-					int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2());
+					//only the replacements reducing the distance are kept
+					int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2(), replacementInfo.getRawDistance() - 1);
 					if(distanceRaw >= 0 && distanceRaw < replacementInfo.getRawDistance()) {
 						Replacement replacement = new Replacement(s1, s2, type);
 						double distancenormalized = (double)distanceRaw/(double)Math.max(temp.length(), replacementInfo.getArgumentizedString2().length());
@@ -4072,10 +4102,14 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				childrenSize1 == 1 && childrenSize2 == 1 && !comp1.getString().equals("{") && !comp2.getString().equals("{")) {
 			if(compStatements1.get(0).getString().equals("{") && !compStatements2.get(0).getString().equals("{")) {
 				CompositeStatementObject block = (CompositeStatementObject)compStatements1.get(0);
+				//a copy, so that the statements of the composite statement are not modified
+				compStatements1 = new ArrayList<AbstractStatement>(compStatements1);
 				compStatements1.addAll(block.getStatements());
 			}
 			if(!compStatements1.get(0).getString().equals("{") && compStatements2.get(0).getString().equals("{")) {
 				CompositeStatementObject block = (CompositeStatementObject)compStatements2.get(0);
+				//a copy, so that the statements of the composite statement are not modified
+				compStatements2 = new ArrayList<AbstractStatement>(compStatements2);
 				compStatements2.addAll(block.getStatements());
 			}
 		}
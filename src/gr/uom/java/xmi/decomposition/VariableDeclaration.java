@@ -1,5 +1,6 @@
 package gr.uom.java.xmi.decomposition;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,7 +23,8 @@ import gr.uom.java.xmi.UMLType;
 import gr.uom.java.xmi.VariableDeclarationProvider;
 import gr.uom.java.xmi.diff.CodeRange;
 
-public class VariableDeclaration implements LocationInfoProvider, VariableDeclarationProvider {
+public class VariableDeclaration implements LocationInfoProvider, VariableDeclarationProvider, Serializable {
+	private static final long serialVersionUID = 1L;
 	private String variableName;
 	private AbstractExpression initializer;
 	private UMLType type;
@@ -1,10 +1,13 @@
 package gr.uom.java.xmi.decomposition;
 
+import java.io.Serializable;
+
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import gr.uom.java.xmi.LocationInfo;
 
-public class VariableScope {
+public class VariableScope implements Serializable {
+	private static final long serialVersionUID = 1L;
 	private String filePath;
 	private int startOffset;
 	private int endOffset;
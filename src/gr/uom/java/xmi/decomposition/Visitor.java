@@ -1,6 +1,7 @@
 package gr.uom.java.xmi.decomposition;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -59,24 +60,24 @@ public class Visitor extends ASTVisitor {
 	public static final Pattern METHOD_SIGNATURE_PATTERN = Pattern.compile("(public|protected|private|static|\\s) +[\\w\\<\\>\\[\\]]+\\s+(\\w+) *\\([^\\)]*\\) *(\\{?|[^;])");
 	private CompilationUnit cu;
 	private String filePath;
-	private List<String> variables = new ArrayList<String>();
-	private List<String> types = new ArrayList<String>();
-	private Map<String, List<OperationInvocation>> methodInvocationMap = new LinkedHashMap<String, List<OperationInvocation>>();
-	private List<VariableDeclaration> variableDeclarations = new ArrayList<VariableDeclaration>();
-	private List<AnonymousClassDeclarationObject> anonymousClassDeclarations = new ArrayList<AnonymousClassDeclarationObject>();
-	private List<String> stringLiterals = new ArrayList<String>();
-	private List<String> numberLiterals = new ArrayList<String>();
-	private List<String> nullLiterals = new ArrayList<String>();
-	private List<String> booleanLiterals = new ArrayList<String>();
-	private List<String> typeLiterals = new ArrayList<String>();
-	private Map<String, List<ObjectCreation>> creationMap = new LinkedHashMap<String, List<ObjectCreation>>();
-	private List<String> infixOperators = new ArrayList<String>();
-	private List<String> arrayAccesses = new ArrayList<String>();
-	private List<String> prefixExpressions = new ArrayList<String>();
-	private List<String> postfixExpressions = new ArrayList<String>();
-	private List<String> arguments = new ArrayList<String>();
-	private List<TernaryOperatorExpression> ternaryOperatorExpressions = new ArrayList<TernaryOperatorExpression>();
-	private List<LambdaExpressionObject> lambdas = new ArrayList<LambdaExpressionObject>();
+	private List<String> variables = Collections.emptyList();
+	private List<String> types = Collections.emptyList();
+	private Map<String, List<OperationInvocation>> methodInvocationMap = Collections.emptyMap();
+	private List<VariableDeclaration> variableDeclarations = Collections.emptyList();
+	private List<AnonymousClassDeclarationObject> anonymousClassDeclarations = Collections.emptyList();
+	private List<String> stringLiterals = Collections.emptyList();
+	private List<String> numberLiterals = Collections.emptyList();
+	private List<String> nullLiterals = Collections.emptyList();
+	private List<String> booleanLiterals = Collections.emptyList();
+	private List<String> typeLiterals = Collections.emptyList();
+	private Map<String, List<ObjectCreation>> creationMap = Collections.emptyMap();
+	private List<String> infixOperators = Collections.emptyList();
+	private List<String> arrayAccesses = Collections.emptyList();
+	private List<String> prefixExpressions = Collections.emptyList();
+	private List<String> postfixExpressions = Collections.emptyList();
+	private List<String> arguments = Collections.emptyList();
+	private List<TernaryOperatorExpression> ternaryOperatorExpressions = Collections.emptyList();
+	private List<LambdaExpressionObject> lambdas = Collections.emptyList();
 	private Set<ASTNode> builderPatternChains = new LinkedHashSet<ASTNode>();
 	private DefaultMutableTreeNode root = new DefaultMutableTreeNode();
 	private DefaultMutableTreeNode current = root;
@@ -87,7 +88,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(ArrayAccess node) {
-		arrayAccesses.add(node.toString());
+		arrayAccesses = add(arrayAccesses, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getArrayAccesses().add(node.toString());
@@ -96,7 +97,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(PrefixExpression node) {
-		prefixExpressions.add(node.toString());
+		prefixExpressions = add(prefixExpressions, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getPrefixExpressions().add(node.toString());
@@ -105,7 +106,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(PostfixExpression node) {
-		postfixExpressions.add(node.toString());
+		postfixExpressions = add(postfixExpressions, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getPostfixExpressions().add(node.toString());
@@ -115,7 +116,7 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(ConditionalExpression node) {
 		TernaryOperatorExpression ternary = new TernaryOperatorExpression(cu, filePath, node);
-		ternaryOperatorExpressions.add(ternary);
+		ternaryOperatorExpressions = add(ternaryOperatorExpressions, ternary);
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getTernaryOperatorExpressions().add(ternary);
@@ -124,7 +125,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(InfixExpression node) {
-		infixOperators.add(node.getOperator().toString());
+		infixOperators = add(infixOperators, node.getOperator().toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getInfixOperators().add(node.getOperator().toString());
@@ -145,7 +146,7 @@ public class Visitor extends ASTVisitor {
 		else {
 			List<ObjectCreation> list = new ArrayList<ObjectCreation>();
 			list.add(creation);
-			creationMap.put(nodeAsString, list);
+			creationMap = put(creationMap, nodeAsString, list);
 		}
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
@@ -171,7 +172,7 @@ public class Visitor extends ASTVisitor {
 		else {
 			List<ObjectCreation> list = new ArrayList<ObjectCreation>();
 			list.add(creation);
-			creationMap.put(nodeAsString, list);
+			creationMap = put(creationMap, nodeAsString, list);
 		}
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
@@ -198,7 +199,7 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(VariableDeclarationFragment node) {
 		if(!(node.getParent() instanceof LambdaExpression)) {
 			VariableDeclaration variableDeclaration = new VariableDeclaration(cu, filePath, node);
-			variableDeclarations.add(variableDeclaration);
+			variableDeclarations = add(variableDeclarations, variableDeclaration);
 			if(current.getUserObject() != null) {
 				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 				anonymous.getVariableDeclarations().add(variableDeclaration);
@@ -209,7 +210,7 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(SingleVariableDeclaration node) {
 		VariableDeclaration variableDeclaration = new VariableDeclaration(cu, filePath, node);
-		variableDeclarations.add(variableDeclaration);
+		variableDeclarations = add(variableDeclarations, variableDeclaration);
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getVariableDeclarations().add(variableDeclaration);
@@ -224,7 +225,7 @@ public class Visitor extends ASTVisitor {
 			AnonymousClassDeclarationObject currentAnonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			currentAnonymous.getAnonymousClassDeclarations().add(childAnonymous);
 		}
-		anonymousClassDeclarations.add(childAnonymous);
+		anonymousClassDeclarations = add(anonymousClassDeclarations, childAnonymous);
 		this.current = childNode;
 		for(ASTNode parent : builderPatternChains) {
 			if(isParent(node, parent)) {
@@ -251,10 +252,14 @@ public class Visitor extends ASTVisitor {
 			this.variables.removeAll(anonymous.getVariables());
 			this.types.removeAll(anonymous.getTypes());
 			for(String key : anonymous.getMethodInvocationMap().keySet()) {
-				this.methodInvocationMap.remove(key, anonymous.getMethodInvocationMap().get(key));
+				if(this.methodInvocationMap.containsKey(key)) {
+					this.methodInvocationMap.remove(key, anonymous.getMethodInvocationMap().get(key));
+				}
 			}
 			for(String key : anonymous.getCreationMap().keySet()) {
-				this.creationMap.remove(key, anonymous.getCreationMap().get(key));
+				if(this.creationMap.containsKey(key)) {
+					this.creationMap.remove(key, anonymous.getCreationMap().get(key));
+				}
 			}
 			this.variableDeclarations.removeAll(anonymous.getVariableDeclarations());
 			this.stringLiterals.removeAll(anonymous.getStringLiterals());
@@ -330,7 +335,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(StringLiteral node) {
-		stringLiterals.add(node.toString());
+		stringLiterals = add(stringLiterals, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getStringLiterals().add(node.toString());
@@ -339,7 +344,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(NumberLiteral node) {
-		numberLiterals.add(node.toString());
+		numberLiterals = add(numberLiterals, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getNumberLiterals().add(node.toString());
@@ -348,7 +353,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(NullLiteral node) {
-		nullLiterals.add(node.toString());
+		nullLiterals = add(nullLiterals, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getNullLiterals().add(node.toString());
@@ -357,7 +362,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(BooleanLiteral node) {
-		booleanLiterals.add(node.toString());
+		booleanLiterals = add(booleanLiterals, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getBooleanLiterals().add(node.toString());
@@ -366,7 +371,7 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public boolean visit(TypeLiteral node) {
-		typeLiterals.add(node.toString());
+		typeLiterals = add(typeLiterals, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getTypeLiterals().add(node.toString());
@@ -376,7 +381,7 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(ThisExpression node) {
 		if(!(node.getParent() instanceof FieldAccess)) {
-			variables.add(node.toString());
+			variables = add(variables, node.toString());
 			if(current.getUserObject() != null) {
 				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 				anonymous.getVariables().add(node.toString());
@@ -388,7 +393,7 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(SimpleName node) {
 		if(node.getParent() instanceof FieldAccess && ((FieldAccess)node.getParent()).getExpression() instanceof ThisExpression) {
 			FieldAccess fieldAccess = (FieldAccess)node.getParent();
-			variables.add(fieldAccess.toString());
+			variables = add(variables, fieldAccess.toString());
 			if(current.getUserObject() != null) {
 				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 				anonymous.getVariables().add(fieldAccess.toString());
@@ -429,7 +434,7 @@ public class Visitor extends ASTVisitor {
 			// skip names being part of qualified names
 		}
 		else {
-			variables.add(node.getIdentifier());
+			variables = add(variables, node.getIdentifier());
 			if(current.getUserObject() != null) {
 				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 				anonymous.getVariables().add(node.getIdentifier());
@@ -439,7 +444,7 @@ public class Visitor extends ASTVisitor {
 	}
 	
 	public boolean visit(ArrayType node) {
-		types.add(node.toString());
+		types = add(types, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getTypes().add(node.toString());
@@ -448,7 +453,7 @@ public class Visitor extends ASTVisitor {
 	}
 	
 	public boolean visit(ParameterizedType node) {
-		types.add(node.toString());
+		types = add(types, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getTypes().add(node.toString());
@@ -457,7 +462,7 @@ public class Visitor extends ASTVisitor {
 	}
 	
 	public boolean visit(WildcardType node) {
-		types.add(node.toString());
+		types = add(types, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getTypes().add(node.toString());
@@ -466,7 +471,7 @@ public class Visitor extends ASTVisitor {
 	}
 	
 	public boolean visit(QualifiedType node) {
-		types.add(node.toString());
+		types = add(types, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getTypes().add(node.toString());
@@ -475,7 +480,7 @@ public class Visitor extends ASTVisitor {
 	}
 	
 	public boolean visit(PrimitiveType node) {
-		types.add(node.toString());
+		types = add(types, node.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getTypes().add(node.toString());
@@ -485,7 +490,7 @@ public class Visitor extends ASTVisitor {
 	
 	public boolean visit(SimpleType node) {
 		Name name = node.getName();
-		types.add(name.getFullyQualifiedName());
+		types = add(types, name.getFullyQualifiedName());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getTypes().add(name.getFullyQualifiedName());
@@ -531,7 +536,7 @@ public class Visitor extends ASTVisitor {
 		else {
 			List<OperationInvocation> list = new ArrayList<OperationInvocation>();
 			list.add(invocation);
-			methodInvocationMap.put(methodInvocation, list);
+			methodInvocationMap = put(methodInvocationMap, methodInvocation, list);
 		}
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
@@ -594,7 +599,7 @@ public class Visitor extends ASTVisitor {
 		else {
 			List<OperationInvocation> list = new ArrayList<OperationInvocation>();
 			list.add(invocation);
-			methodInvocationMap.put(nodeAsString, list);
+			methodInvocationMap = put(methodInvocationMap, nodeAsString, list);
 		}
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
@@ -624,7 +629,7 @@ public class Visitor extends ASTVisitor {
 		else {
 			List<OperationInvocation> list = new ArrayList<OperationInvocation>();
 			list.add(invocation);
-			methodInvocationMap.put(nodeAsString, list);
+			methodInvocationMap = put(methodInvocationMap, nodeAsString, list);
 		}
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
@@ -654,7 +659,7 @@ public class Visitor extends ASTVisitor {
 		else {
 			List<OperationInvocation> list = new ArrayList<OperationInvocation>();
 			list.add(invocation);
-			methodInvocationMap.put(nodeAsString, list);
+			methodInvocationMap = put(methodInvocationMap, nodeAsString, list);
 		}
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
@@ -680,7 +685,7 @@ public class Visitor extends ASTVisitor {
 				(argument instanceof ArrayAccess && invalidArrayAccess((ArrayAccess)argument)) ||
 				(argument instanceof InfixExpression && invalidInfix((InfixExpression)argument)))
 			return;
-		this.arguments.add(argument.toString());
+		this.arguments = add(this.arguments, argument.toString());
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getArguments().add(argument.toString());
@@ -690,12 +695,12 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(QualifiedName node) {
 		Name qualifier = node.getQualifier();
 		if(Character.isUpperCase(qualifier.getFullyQualifiedName().charAt(0))) {
-			types.add(qualifier.getFullyQualifiedName());
+			types = add(types, qualifier.getFullyQualifiedName());
 			if(current.getUserObject() != null) {
 				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 				anonymous.getTypes().add(qualifier.getFullyQualifiedName());
 			}
-			variables.add(node.toString());
+			variables = add(variables, node.toString());
 			if(current.getUserObject() != null) {
 				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 				anonymous.getVariables().add(node.toString());
@@ -703,7 +708,7 @@ public class Visitor extends ASTVisitor {
 		}
 		else if(qualifier instanceof SimpleName && !(node.getParent() instanceof QualifiedName)) {
 			if(node.getName().getIdentifier().equals("length")) {
-				variables.add(node.toString());
+				variables = add(variables, node.toString());
 				if(current.getUserObject() != null) {
 					AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 					anonymous.getVariables().add(node.toString());
@@ -722,7 +727,7 @@ public class Visitor extends ASTVisitor {
 						}
 					}
 					if(qualifierIsParameter) {
-						variables.add(node.toString());
+						variables = add(variables, node.toString());
 						if(current.getUserObject() != null) {
 							AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 							anonymous.getVariables().add(node.toString());
@@ -732,7 +737,7 @@ public class Visitor extends ASTVisitor {
 				EnhancedForStatement enhancedFor = findParentEnhancedForStatement(node);
 				if(enhancedFor != null) {
 					if(enhancedFor.getParameter().getName().getIdentifier().equals(qualifierIdentifier)) {
-						variables.add(node.toString());
+						variables = add(variables, node.toString());
 						if(current.getUserObject() != null) {
 							AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 							anonymous.getVariables().add(node.toString());
@@ -769,7 +774,7 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(CastExpression node) {
 		Expression castExpression = node.getExpression();
 		if(castExpression instanceof SimpleName) {
-			variables.add(node.toString());
+			variables = add(variables, node.toString());
 			if(current.getUserObject() != null) {
 				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 				anonymous.getVariables().add(node.toString());
@@ -780,7 +785,7 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(LambdaExpression node) {
 		LambdaExpressionObject lambda = new LambdaExpressionObject(cu, filePath, node);
-		lambdas.add(lambda);
+		lambdas = add(lambdas, lambda);
 		if(current.getUserObject() != null) {
 			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
 			anonymous.getLambdas().add(lambda);
@@ -789,75 +794,75 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public Map<String, List<OperationInvocation>> getMethodInvocationMap() {
-		return this.methodInvocationMap;
+		return compact(methodInvocationMap);
 	}
 
 	public List<VariableDeclaration> getVariableDeclarations() {
-		return variableDeclarations;
+		return compact(variableDeclarations);
 	}
 
 	public List<String> getTypes() {
-		return types;
+		return compact(types);
 	}
 
 	public List<AnonymousClassDeclarationObject> getAnonymousClassDeclarations() {
-		return anonymousClassDeclarations;
+		return compact(anonymousClassDeclarations);
 	}
 
 	public List<String> getStringLiterals() {
-		return stringLiterals;
+		return compact(stringLiterals);
 	}
 
 	public List<String> getNumberLiterals() {
-		return numberLiterals;
+		return compact(numberLiterals);
 	}
 
 	public List<String> getNullLiterals() {
-		return nullLiterals;
+		return compact(nullLiterals);
 	}
 
 	public List<String> getBooleanLiterals() {
-		return booleanLiterals;
+		return compact(booleanLiterals);
 	}
 
 	public List<String> getTypeLiterals() {
-		return typeLiterals;
+		return compact(typeLiterals);
 	}
 
 	public Map<String, List<ObjectCreation>> getCreationMap() {
-		return creationMap;
+		return compact(creationMap);
 	}
 
 	public List<String> getInfixOperators() {
-		return infixOperators;
+		return compact(infixOperators);
 	}
 
 	public List<String> getArrayAccesses() {
-		return arrayAccesses;
+		return compact(arrayAccesses);
 	}
 
 	public List<String> getPrefixExpressions() {
-		return prefixExpressions;
+		return compact(prefixExpressions);
 	}
 
 	public List<String> getPostfixExpressions() {
-		return postfixExpressions;
+		return compact(postfixExpressions);
 	}
 
 	public List<String> getArguments() {
-		return this.arguments;
+		return compact(arguments);
 	}
 
 	public List<TernaryOperatorExpression> getTernaryOperatorExpressions() {
-		return ternaryOperatorExpressions;
+		return compact(ternaryOperatorExpressions);
 	}
 
 	public List<String> getVariables() {
-		return variables;
+		return compact(variables);
 	}
 
 	public List<LambdaExpressionObject> getLambdas() {
-		return lambdas;
+		return compact(lambdas);
 	}
 
 	private static boolean invalidArrayAccess(ArrayAccess e) {
@@ -871,4 +876,36 @@ public class Visitor extends ASTVisitor {
 	private static boolean simpleNameOrNumberLiteral(Expression e) {
 		return e instanceof SimpleName || e instanceof NumberLiteral;
 	}
+
+	//the collections are allocated on their first element, since most statements have no literals, creations or lambdas
+	private static <T> List<T> add(List<T> list, T element) {
+		if(list == Collections.<T>emptyList()) {
+			list = new ArrayList<T>();
+		}
+		list.add(element);
+		return list;
+	}
+
+	private static <T> Map<String, List<T>> put(Map<String, List<T>> map, String key, List<T> value) {
+		if(map == Collections.<String, List<T>>emptyMap()) {
+			map = new LinkedHashMap<String, List<T>>();
+		}
+		map.put(key, value);
+		return map;
+	}
+
+	//the statements keep the collections as they are, so their backing arrays are trimmed to the number of elements
+	private static <T> List<T> compact(List<T> list) {
+		if(list instanceof ArrayList) {
+			((ArrayList<T>)list).trimToSize();
+		}
+		return list;
+	}
+
+	private static <T> Map<String, List<T>> compact(Map<String, List<T>> map) {
+		for(List<T> list : map.values()) {
+			compact(list);
+		}
+		return map;
+	}
 }
@@ -0,0 +1,107 @@
+package gr.uom.java.xmi.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gr.uom.java.xmi.UMLAttribute;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLType;
+
+/**
+ * Indexes a list of class diffs by the names of their classes and attributes, so that the class diffs matching a name
+ * are found in the order of the list without scanning all of them.
+ */
+class ClassDiffIndex<T extends UMLClassBaseDiff> {
+	private final Map<String, List<T>> classDiffsByClassName = new HashMap<String, List<T>>();
+	//a type matches the classes whose names end with "." followed by the type, so the names are also indexed without their leading segments
+	private final Map<String, List<T>> classDiffsByClassNameSuffix = new HashMap<String, List<T>>();
+	private final Map<String, List<T>> classDiffsByOriginalAttributeName = new HashMap<String, List<T>>();
+	private final Map<String, List<T>> classDiffsByNextAttributeName = new HashMap<String, List<T>>();
+
+	void add(T classDiff) {
+		Set<String> classNames = new LinkedHashSet<String>();
+		classNames.add(classDiff.getOriginalClass().getName());
+		classNames.add(classDiff.getNextClass().getName());
+		Set<String> classNameSuffixes = new LinkedHashSet<String>();
+		for(String className : classNames) {
+			for(int i = className.indexOf('.'); i != -1; i = className.indexOf('.', i + 1)) {
+				classNameSuffixes.add(className.substring(i + 1));
+			}
+		}
+		add(classDiffsByClassName, classNames, classDiff);
+		add(classDiffsByClassNameSuffix, classNameSuffixes, classDiff);
+		add(classDiffsByOriginalAttributeName, attributeNames(classDiff.getOriginalClass()), classDiff);
+		add(classDiffsByNextAttributeName, attributeNames(classDiff.getNextClass()), classDiff);
+	}
+
+	void rebuild(List<? extends T> classDiffs) {
+		classDiffsByClassName.clear();
+		classDiffsByClassNameSuffix.clear();
+		classDiffsByOriginalAttributeName.clear();
+		classDiffsByNextAttributeName.clear();
+		for(T classDiff : classDiffs) {
+			add(classDiff);
+		}
+	}
+
+	//the class diffs for which matches(className) holds
+	List<T> withClassName(String className) {
+		return get(classDiffsByClassName, className);
+	}
+
+	//the class diffs for which matches(type) holds
+	List<T> withClassType(UMLType type) {
+		return get(classDiffsByClassNameSuffix, type.getClassType());
+	}
+
+	//the class diffs whose original class has the first attribute and whose next class has the second attribute
+	List<T> withAttributes(String originalAttributeName, String nextAttributeName) {
+		List<T> classDiffs = new ArrayList<T>();
+		for(T classDiff : get(classDiffsByOriginalAttributeName, originalAttributeName)) {
+			if(classDiff.findAttributeInNextClass(nextAttributeName) != null) {
+				classDiffs.add(classDiff);
+			}
+		}
+		return classDiffs;
+	}
+
+	//the class diffs whose next class has an attribute that their original class does not have
+	List<T> withNewAttribute(String attributeName) {
+		List<T> classDiffs = new ArrayList<T>();
+		for(T classDiff : get(classDiffsByNextAttributeName, attributeName)) {
+			if(classDiff.findAttributeInOriginalClass(attributeName) == null) {
+				classDiffs.add(classDiff);
+			}
+		}
+		return classDiffs;
+	}
+
+	private static Set<String> attributeNames(UMLClass umlClass) {
+		Set<String> attributeNames = new LinkedHashSet<String>();
+		for(UMLAttribute attribute : umlClass.getAttributes()) {
+			attributeNames.add(attribute.getName());
+		}
+		return attributeNames;
+	}
+
+	private static <T> void add(Map<String, List<T>> map, Set<String> keys, T classDiff) {
+		for(String key : keys) {
+			List<T> classDiffs = map.get(key);
+			if(classDiffs == null) {
+				classDiffs = new ArrayList<T>();
+				map.put(key, classDiffs);
+			}
+			classDiffs.add(classDiff);
+		}
+	}
+
+	private static <T> List<T> get(Map<String, List<T>> map, String key) {
+		List<T> classDiffs = map.get(key);
+		return classDiffs != null ? classDiffs : Collections.<T>emptyList();
+	}
+}
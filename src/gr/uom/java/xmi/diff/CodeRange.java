@@ -1,10 +1,12 @@
 package gr.uom.java.xmi.diff;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Set;
 
-import com.fasterxml.jackson.core.io.JsonStringEncoder;
-import com.fasterxml.jackson.core.util.BufferRecyclers;
+import org.refactoringminer.util.RefactoringJSONWriter;
 
 import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
@@ -89,48 +91,13 @@ public class CodeRange {
 	}
 
 	public String toString() {
-		StringBuilder sb = new StringBuilder();
-		sb.append("{").append("\n");
-		encodeStringProperty(sb, "filePath", filePath, false);
-		encodeIntProperty(sb, "startLine", startLine, false);
-		encodeIntProperty(sb, "endLine", endLine, false);
-		encodeIntProperty(sb, "startColumn", startColumn, false);
-		encodeIntProperty(sb, "endColumn", endColumn, false);
-		encodeStringProperty(sb, "codeElementType", codeElementType.name(), false);
-		encodeStringProperty(sb, "description", description, false);
-		encodeStringProperty(sb, "codeElement", escapeQuotes(codeElement), true);
-		sb.append("}");
-		return sb.toString();
-	}
-
-	private String escapeQuotes(String s) {
-		if(s != null) {
-			StringBuilder sb = new StringBuilder();
-			JsonStringEncoder encoder = BufferRecyclers.getJsonStringEncoder();
-			encoder.quoteAsString(s, sb);
-			return sb.toString();
+		StringWriter writer = new StringWriter();
+		try {
+			new RefactoringJSONWriter(writer).writeCodeRange(this);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		return s;
-	}
-
-	private void encodeStringProperty(StringBuilder sb, String propertyName, String value, boolean last) {
-		if(value != null)
-			sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + "\"" + value + "\"");
-		else
-			sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + value);
-		insertNewLine(sb, last);
-	}
-
-	private void encodeIntProperty(StringBuilder sb, String propertyName, int value, boolean last) {
-		sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + value);
-		insertNewLine(sb, last);
-	}
-
-	private void insertNewLine(StringBuilder sb, boolean last) {
-		if(last)
-			sb.append("\n");
-		else
-			sb.append(",").append("\n");
+		return writer.toString();
 	}
 
 	public static CodeRange computeRange(Set<AbstractCodeFragment> codeFragments) {
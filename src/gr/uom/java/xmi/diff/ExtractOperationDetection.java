@@ -7,6 +7,7 @@ import java.util.ListIterator;
 import java.util.Map;
 
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.util.CommitBudget;
 
 import gr.uom.java.xmi.UMLOperation;
 import gr.uom.java.xmi.UMLParameter;
@@ -37,6 +38,7 @@ public class ExtractOperationDetection {
 	}
 
 	public List<ExtractOperationRefactoring> check(UMLOperation addedOperation) throws RefactoringMinerTimedOutException {
+		CommitBudget.check();
 		List<ExtractOperationRefactoring> refactorings = new ArrayList<ExtractOperationRefactoring>();
 		if(!mapper.getNonMappedLeavesT1().isEmpty() || !mapper.getNonMappedInnerNodesT1().isEmpty() ||
 			!mapper.getReplacementsInvolvingMethodInvocation().isEmpty()) {
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.util.CommitBudget;
 
 import gr.uom.java.xmi.UMLAnonymousClass;
 import gr.uom.java.xmi.UMLOperation;
@@ -32,6 +33,7 @@ public class InlineOperationDetection {
 	}
 
 	public List<InlineOperationRefactoring> check(UMLOperation removedOperation) throws RefactoringMinerTimedOutException {
+		CommitBudget.check();
 		List<InlineOperationRefactoring> refactorings = new ArrayList<InlineOperationRefactoring>();
 		if(!mapper.getNonMappedLeavesT2().isEmpty() || !mapper.getNonMappedInnerNodesT2().isEmpty() ||
 			!mapper.getReplacementsInvolvingMethodInvocation().isEmpty()) {
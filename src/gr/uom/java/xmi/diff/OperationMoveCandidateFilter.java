@@ -0,0 +1,106 @@
+package gr.uom.java.xmi.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.StatementObject;
+
+/**
+ * Selects the most plausible operations to be compared with an operation, based on the similarity of the tokens in their statements,
+ * so that a body mapper is created only for the operation pairs that are likely to match.
+ */
+class OperationMoveCandidateFilter {
+	private final int maximumCandidates;
+	private final Map<UMLOperation, Set<String>> operationTokens = new IdentityHashMap<UMLOperation, Set<String>>();
+	private int prunedPairs;
+
+	OperationMoveCandidateFilter(int maximumCandidates) {
+		this.maximumCandidates = maximumCandidates;
+	}
+
+	//returns the candidates in their original order, since the order of the compared operations affects the selected mappers
+	List<UMLOperation> candidates(UMLOperation operation, List<UMLOperation> operations) {
+		if(maximumCandidates <= 0 || operations.size() <= maximumCandidates) {
+			return operations;
+		}
+		Set<String> tokens = tokens(operation);
+		final double[] similarities = new double[operations.size()];
+		Integer[] indices = new Integer[operations.size()];
+		for(int i = 0; i < operations.size(); i++) {
+			similarities[i] = similarity(tokens, tokens(operations.get(i)));
+			indices[i] = i;
+		}
+		//stable sort, so that equally similar operations keep their original order
+		Arrays.sort(indices, (index1, index2) -> Double.compare(similarities[index2], similarities[index1]));
+		boolean[] selected = new boolean[operations.size()];
+		for(int i = 0; i < maximumCandidates; i++) {
+			selected[indices[i]] = true;
+		}
+		List<UMLOperation> candidates = new ArrayList<UMLOperation>(maximumCandidates);
+		for(int i = 0; i < operations.size(); i++) {
+			if(selected[i]) {
+				candidates.add(operations.get(i));
+			}
+		}
+		prunedPairs += operations.size() - maximumCandidates;
+		return candidates;
+	}
+
+	int getPrunedPairs() {
+		return prunedPairs;
+	}
+
+	private Set<String> tokens(UMLOperation operation) {
+		Set<String> tokens = operationTokens.get(operation);
+		if(tokens == null) {
+			tokens = new HashSet<String>();
+			tokens.add(operation.getName());
+			if(operation.getBody() != null) {
+				for(StatementObject leaf : operation.getBody().getCompositeStatement().getLeaves()) {
+					addTokens(leaf.getString(), tokens);
+				}
+			}
+			operationTokens.put(operation, tokens);
+		}
+		return tokens;
+	}
+
+	//identifiers, keywords and literals, with the operators and separators acting as delimiters
+	private static void addTokens(String statement, Set<String> tokens) {
+		int start = -1;
+		for(int i = 0; i < statement.length(); i++) {
+			char c = statement.charAt(i);
+			if(Character.isJavaIdentifierPart(c) || c == '"' || c == '\'') {
+				if(start == -1) {
+					start = i;
+				}
+			}
+			else if(start != -1) {
+				tokens.add(statement.substring(start, i));
+				start = -1;
+			}
+		}
+		if(start != -1) {
+			tokens.add(statement.substring(start));
+		}
+	}
+
+	private static double similarity(Set<String> tokens1, Set<String> tokens2) {
+		if(tokens1.size() > tokens2.size()) {
+			return similarity(tokens2, tokens1);
+		}
+		int commonTokens = 0;
+		for(String token : tokens1) {
+			if(tokens2.contains(token)) {
+				commonTokens++;
+			}
+		}
+		return (double)commonTokens/(tokens1.size() + tokens2.size() - commonTokens);
+	}
+}
@@ -1,14 +1,109 @@
 package gr.uom.java.xmi.diff;
 
-import org.apache.commons.text.similarity.LevenshteinDistance;
+import java.util.Arrays;
 
 public class StringDistance {
-	
+	//the two rows of the distance matrix, reused by the calls of the same thread
+	private static final ThreadLocal<int[][]> ROWS = new ThreadLocal<int[][]>() {
+		@Override
+		protected int[][] initialValue() {
+			return new int[2][64];
+		}
+	};
+
+	//returns -1 when the distance is greater than the threshold, computing only the diagonal band of width 2*threshold+1
 	public static int editDistance(String a, String b, int threshold) {
-		return new LevenshteinDistance(threshold).apply(a, b);
+		if(threshold < 0) {
+			return -1;
+		}
+		//a is the shorter string
+		if(a.length() > b.length()) {
+			String temp = a;
+			a = b;
+			b = temp;
+		}
+		int n = a.length();
+		int m = b.length();
+		if(m - n > threshold) {
+			return -1;
+		}
+		if(n == 0) {
+			return m;
+		}
+		int[][] rows = rows(n + 1);
+		int[] p = rows[0];
+		int[] d = rows[1];
+		int boundary = Math.min(n, threshold) + 1;
+		for(int i = 0; i < boundary; i++) {
+			p[i] = i;
+		}
+		Arrays.fill(p, boundary, n + 1, Integer.MAX_VALUE);
+		Arrays.fill(d, 0, n + 1, Integer.MAX_VALUE);
+		for(int j = 1; j <= m; j++) {
+			char bj = b.charAt(j - 1);
+			d[0] = j;
+			int min = Math.max(1, j - threshold);
+			int max = j > Integer.MAX_VALUE - threshold ? n : Math.min(n, j + threshold);
+			if(min > 1) {
+				d[min - 1] = Integer.MAX_VALUE;
+			}
+			int lowerBound = Integer.MAX_VALUE;
+			for(int i = min; i <= max; i++) {
+				if(a.charAt(i - 1) == bj) {
+					d[i] = p[i - 1];
+				}
+				else {
+					d[i] = 1 + Math.min(Math.min(d[i - 1], p[i]), p[i - 1]);
+				}
+				lowerBound = Math.min(lowerBound, d[i]);
+			}
+			if(lowerBound > threshold) {
+				return -1;
+			}
+			int[] temp = p;
+			p = d;
+			d = temp;
+		}
+		return p[n] <= threshold ? p[n] : -1;
 	}
 
 	public static int editDistance(String a, String b) {
-		return new LevenshteinDistance().apply(a, b);
+		//a is the shorter string
+		if(a.length() > b.length()) {
+			String temp = a;
+			a = b;
+			b = temp;
+		}
+		int n = a.length();
+		int m = b.length();
+		if(n == 0) {
+			return m;
+		}
+		int[] p = rows(n + 1)[0];
+		for(int i = 0; i <= n; i++) {
+			p[i] = i;
+		}
+		for(int j = 1; j <= m; j++) {
+			char bj = b.charAt(j - 1);
+			int upperLeft = p[0];
+			p[0] = j;
+			for(int i = 1; i <= n; i++) {
+				int upper = p[i];
+				int cost = a.charAt(i - 1) == bj ? 0 : 1;
+				p[i] = Math.min(Math.min(p[i - 1] + 1, upper + 1), upperLeft + cost);
+				upperLeft = upper;
+			}
+		}
+		return p[n];
+	}
+
+	private static int[][] rows(int length) {
+		int[][] rows = ROWS.get();
+		if(rows[0].length < length) {
+			int capacity = Math.max(length, rows[0].length * 2);
+			rows[0] = new int[capacity];
+			rows[1] = new int[capacity];
+		}
+		return rows;
 	}
 }
@@ -26,6 +26,9 @@ import gr.uom.java.xmi.decomposition.replacement.Replacement.ReplacementType;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -35,10 +38,16 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.refactoringminer.api.DetectionPhase;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.util.CommitBudget;
 import org.refactoringminer.util.PrefixSuffixUtils;
 
 public class UMLModelDiff {
@@ -57,8 +66,18 @@ public class UMLModelDiff {
    private List<UMLClassMoveDiff> classMoveDiffList;
    private List<UMLClassMoveDiff> innerClassMoveDiffList;
    private List<UMLClassRenameDiff> classRenameDiffList;
+   private ClassDiffIndex<UMLClassDiff> commonClassDiffIndex = new ClassDiffIndex<UMLClassDiff>();
+   private ClassDiffIndex<UMLClassMoveDiff> classMoveDiffIndex = new ClassDiffIndex<UMLClassMoveDiff>();
+   private ClassDiffIndex<UMLClassMoveDiff> innerClassMoveDiffIndex = new ClassDiffIndex<UMLClassMoveDiff>();
+   private ClassDiffIndex<UMLClassRenameDiff> classRenameDiffIndex = new ClassDiffIndex<UMLClassRenameDiff>();
+   //the supertypes reachable from the classes checked by isSubclassOf, cleared whenever the class diffs or the added and removed classes change
+   private Map<String, Set<String>> supertypeClosures = new HashMap<String, Set<String>>();
+   private Set<DetectionPhase> skippedPhases = EnumSet.noneOf(DetectionPhase.class);
    private List<Refactoring> refactorings;
    private Set<String> deletedFolderPaths;
+   //the lookups of other class diffs made by the class diff processed concurrently on the current thread
+   private final ThreadLocal<List<CrossClassLookup>> crossClassLookups = new ThreadLocal<List<CrossClassLookup>>();
+   private OperationMoveCandidateFilter operationMoveCandidateFilter = new OperationMoveCandidateFilter(0);
    
    public UMLModelDiff() {
       this.addedClasses = new ArrayList<UMLClass>();
@@ -77,14 +96,27 @@ public class UMLModelDiff {
       this.deletedFolderPaths = new LinkedHashSet<String>();
    }
 
+   //the number of most similar operations compared with each added or removed operation when checking for moved operations, 0 compares all of them
+   public void setMaximumOperationMoveCandidates(int maximumOperationMoveCandidates) {
+      this.operationMoveCandidateFilter = new OperationMoveCandidateFilter(maximumOperationMoveCandidates);
+   }
+
+   public int getPrunedOperationPairs() {
+      return operationMoveCandidateFilter.getPrunedPairs();
+   }
+
    public void reportAddedClass(UMLClass umlClass) {
-	   if(!addedClasses.contains(umlClass))
+	   if(!addedClasses.contains(umlClass)) {
 		   this.addedClasses.add(umlClass);
+		   this.supertypeClosures.clear();
+	   }
    }
 
    public void reportRemovedClass(UMLClass umlClass) {
-	   if(!removedClasses.contains(umlClass))
+	   if(!removedClasses.contains(umlClass)) {
 		   this.removedClasses.add(umlClass);
+		   this.supertypeClosures.clear();
+	   }
    }
 
    public void reportAddedGeneralization(UMLGeneralization umlGeneralization) {
@@ -105,9 +137,133 @@ public class UMLModelDiff {
 
    public void addUMLClassDiff(UMLClassDiff classDiff) {
       this.commonClassDiffList.add(classDiff);
+      this.commonClassDiffIndex.add(classDiff);
+      this.supertypeClosures.clear();
+   }
+
+   //processes the class diffs concurrently when an executor is given, and adds the non-empty ones in the order of the list.
+   //the workers never wait for each other: the lookups of a class diff in process see only the class diffs added before,
+   //and record their answers. once the preceding class diffs of the list are added, the calling thread asks the lookups again,
+   //and processes the class diff again when an answer changed, so that the results are the ones of a sequential run
+   public void processUMLClassDiffs(List<UMLClassDiff> classDiffs, ExecutorService executor) throws RefactoringMinerTimedOutException {
+      if(executor == null) {
+         for(UMLClassDiff classDiff : classDiffs) {
+            classDiff.process();
+            if(!classDiff.isEmpty())
+               addUMLClassDiff(classDiff);
+         }
+         return;
+      }
+      final CommitBudget budget = CommitBudget.current();
+      List<Future<List<CrossClassLookup>>> tasks = new ArrayList<Future<List<CrossClassLookup>>>();
+      try {
+         for(UMLClassDiff classDiff : classDiffs) {
+            tasks.add(executor.submit(new Callable<List<CrossClassLookup>>() {
+               public List<CrossClassLookup> call() throws RefactoringMinerTimedOutException {
+                  List<CrossClassLookup> lookups = new ArrayList<CrossClassLookup>();
+                  crossClassLookups.set(lookups);
+                  CommitBudget previousBudget = CommitBudget.bind(budget);
+                  try {
+                     classDiff.process();
+                  }
+                  finally {
+                     CommitBudget.bind(previousBudget);
+                     crossClassLookups.remove();
+                  }
+                  return lookups;
+               }
+            }));
+         }
+         //when a class diff fails, the class diffs preceding it are kept, as in a sequential run
+         for(int i=0; i<classDiffs.size(); i++) {
+            UMLClassDiff classDiff = classDiffs.get(i);
+            if(!isAnsweredAlike(getLookups(tasks.get(i)))) {
+               classDiff = new UMLClassDiff(classDiff.getOriginalClass(), classDiff.getNextClass(), this);
+               classDiff.process();
+            }
+            if(!classDiff.isEmpty())
+               addUMLClassDiff(classDiff);
+         }
+      }
+      finally {
+         for(Future<?> task : tasks) {
+            task.cancel(true);
+         }
+      }
+   }
+
+   private static List<CrossClassLookup> getLookups(Future<List<CrossClassLookup>> task) throws RefactoringMinerTimedOutException {
+      try {
+         return task.get();
+      }
+      catch(InterruptedException e) {
+         throw new RefactoringMinerTimedOutException();
+      }
+      catch(ExecutionException e) {
+         if(e.getCause() instanceof RefactoringMinerTimedOutException)
+            throw (RefactoringMinerTimedOutException)e.getCause();
+         if(e.getCause() instanceof Error)
+            throw (Error)e.getCause();
+         throw (RuntimeException)e.getCause();
+      }
+   }
+
+   private static boolean isAnsweredAlike(List<CrossClassLookup> lookups) {
+      for(CrossClassLookup lookup : lookups) {
+         if(!lookup.isAnsweredAlike())
+            return false;
+      }
+      return true;
+   }
+
+   //a lookup of other class diffs made while processing a class diff concurrently, which tells if it gets the same answer on the calling thread
+   private interface CrossClassLookup {
+      boolean isAnsweredAlike();
+   }
+
+   public interface DetectionStep {
+      void run() throws RefactoringMinerTimedOutException;
+   }
+
+   //when the budget of the commit allows partial results, a phase running out of the budget is abandoned and the following phases are skipped,
+   //so that the refactorings detected before the budget ran out are still returned
+   public void runPhase(DetectionPhase phase, DetectionStep step) throws RefactoringMinerTimedOutException {
+      CommitBudget budget = CommitBudget.current();
+      if(budget == null || !budget.isPartialResultsAllowed()) {
+         step.run();
+         return;
+      }
+      if(!skippedPhases.isEmpty() || budget.isExhausted()) {
+         skipPhase(phase, budget);
+         return;
+      }
+      try {
+         step.run();
+      }
+      catch(RefactoringMinerTimedOutException e) {
+         skipPhase(phase, budget);
+      }
+   }
+
+   private void skipPhase(DetectionPhase phase, CommitBudget budget) {
+      skippedPhases.add(phase);
+      budget.reportSkippedPhase(phase);
+   }
+
+   public Set<DetectionPhase> getSkippedPhases() {
+      return Collections.unmodifiableSet(skippedPhases);
    }
 
    public boolean commonlyImplementedOperations(UMLOperation operation1, UMLOperation operation2, UMLClassBaseDiff classDiff2) {
+	   boolean commonlyImplemented = findCommonlyImplementedOperations(operation1, operation2, classDiff2);
+	   List<CrossClassLookup> lookups = crossClassLookups.get();
+	   if(lookups != null) {
+		   lookups.add(() -> findCommonlyImplementedOperations(operation1, operation2, classDiff2) == commonlyImplemented);
+	   }
+	   return commonlyImplemented;
+   }
+
+   private boolean findCommonlyImplementedOperations(UMLOperation operation1, UMLOperation operation2, UMLClassBaseDiff classDiff2) {
 	   UMLClassBaseDiff classDiff1 = getUMLClassDiff(operation1.getClassName());
 	   if(classDiff1 != null) {
 		   Set<UMLType> commonInterfaces = classDiff1.nextClassCommonInterfaces(classDiff2);
@@ -123,131 +279,104 @@ public class UMLModelDiff {
 	   return false;
    }
 
+   //the indices keep the class diffs in the order of their lists, so that the lookups return the class diffs found first by scanning the lists
    private UMLClassBaseDiff getUMLClassDiff(String className) {
-      for(UMLClassDiff classDiff : commonClassDiffList) {
-         if(classDiff.matches(className))
-            return classDiff;
-      }
-      for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-         if(classDiff.matches(className))
-            return classDiff;
-      }
-      for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-         if(classDiff.matches(className))
-            return classDiff;
-      }
-      for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-         if(classDiff.matches(className))
-            return classDiff;
-      }
-      return null;
+      List<UMLClassDiff> commonClassDiffs = commonClassDiffIndex.withClassName(className);
+      if(!commonClassDiffs.isEmpty())
+         return commonClassDiffs.get(0);
+      return first(classMoveDiffIndex.withClassName(className), innerClassMoveDiffIndex.withClassName(className), classRenameDiffIndex.withClassName(className));
    }
 
    private UMLClassBaseDiff getUMLClassDiff(UMLType type) {
-      for(UMLClassDiff classDiff : commonClassDiffList) {
-         if(classDiff.matches(type))
-            return classDiff;
-      }
-      for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-         if(classDiff.matches(type))
-            return classDiff;
-      }
-      for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-         if(classDiff.matches(type))
-            return classDiff;
-      }
-      for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-         if(classDiff.matches(type))
-            return classDiff;
-      }
-      return null;
+      List<UMLClassDiff> commonClassDiffs = commonClassDiffIndex.withClassType(type);
+      if(!commonClassDiffs.isEmpty())
+         return commonClassDiffs.get(0);
+      return first(classMoveDiffIndex.withClassType(type), innerClassMoveDiffIndex.withClassType(type), classRenameDiffIndex.withClassType(type));
    }
 
    private UMLClassBaseDiff getUMLClassDiffWithAttribute(Replacement pattern) {
-      for(UMLClassDiff classDiff : commonClassDiffList) {
-         if(classDiff.findAttributeInOriginalClass(pattern.getBefore()) != null &&
-        		 classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-            return classDiff;
-      }
-      for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-         if(classDiff.findAttributeInOriginalClass(pattern.getBefore()) != null &&
-        		 classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-            return classDiff;
-      }
-      for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-         if(classDiff.findAttributeInOriginalClass(pattern.getBefore()) != null &&
-        		 classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-            return classDiff;
-      }
-      for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-         if(classDiff.findAttributeInOriginalClass(pattern.getBefore()) != null &&
-        		 classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-            return classDiff;
-      }
-      return null;
+      return first(commonClassDiffIndex.withAttributes(pattern.getBefore(), pattern.getAfter()),
+            classMoveDiffIndex.withAttributes(pattern.getBefore(), pattern.getAfter()),
+            innerClassMoveDiffIndex.withAttributes(pattern.getBefore(), pattern.getAfter()),
+            classRenameDiffIndex.withAttributes(pattern.getBefore(), pattern.getAfter()));
    }
 
    private List<UMLClassBaseDiff> getUMLClassDiffWithExistingAttributeAfter(Replacement pattern) {
 	   List<UMLClassBaseDiff> classDiffs = new ArrayList<UMLClassBaseDiff>();
-	   for(UMLClassDiff classDiff : commonClassDiffList) {
-		   if(classDiff.findAttributeInOriginalClass(pattern.getAfter()) != null &&
-				   classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-			   classDiffs.add(classDiff);
-	   }
-	   for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-		   if(classDiff.findAttributeInOriginalClass(pattern.getAfter()) != null &&
-				   classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-			   classDiffs.add(classDiff);
-	   }
-	   for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-		   if(classDiff.findAttributeInOriginalClass(pattern.getAfter()) != null &&
-				   classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-			   classDiffs.add(classDiff);
-	   }
-	   for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-		   if(classDiff.findAttributeInOriginalClass(pattern.getAfter()) != null &&
-				   classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-			   classDiffs.add(classDiff);
-	   }
+	   classDiffs.addAll(commonClassDiffIndex.withAttributes(pattern.getAfter(), pattern.getAfter()));
+	   classDiffs.addAll(classMoveDiffIndex.withAttributes(pattern.getAfter(), pattern.getAfter()));
+	   classDiffs.addAll(innerClassMoveDiffIndex.withAttributes(pattern.getAfter(), pattern.getAfter()));
+	   classDiffs.addAll(classRenameDiffIndex.withAttributes(pattern.getAfter(), pattern.getAfter()));
 	   return classDiffs;
    }
 
    private List<UMLClassBaseDiff> getUMLClassDiffWithNewAttributeAfter(Replacement pattern) {
 	   List<UMLClassBaseDiff> classDiffs = new ArrayList<UMLClassBaseDiff>();
-	   for(UMLClassDiff classDiff : commonClassDiffList) {
-		   if(classDiff.findAttributeInOriginalClass(pattern.getAfter()) == null &&
-				   classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-			   classDiffs.add(classDiff);
-	   }
-	   for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-		   if(classDiff.findAttributeInOriginalClass(pattern.getAfter()) == null &&
-				   classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-			   classDiffs.add(classDiff);
-	   }
-	   for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-		   if(classDiff.findAttributeInOriginalClass(pattern.getAfter()) == null &&
-				   classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-			   classDiffs.add(classDiff);
-	   }
-	   for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-		   if(classDiff.findAttributeInOriginalClass(pattern.getAfter()) == null &&
-				   classDiff.findAttributeInNextClass(pattern.getAfter()) != null)
-			   classDiffs.add(classDiff);
-	   }
+	   classDiffs.addAll(commonClassDiffIndex.withNewAttribute(pattern.getAfter()));
+	   classDiffs.addAll(classMoveDiffIndex.withNewAttribute(pattern.getAfter()));
+	   classDiffs.addAll(innerClassMoveDiffIndex.withNewAttribute(pattern.getAfter()));
+	   classDiffs.addAll(classRenameDiffIndex.withNewAttribute(pattern.getAfter()));
 	   return classDiffs;
    }
 
+   @SafeVarargs
+   private static UMLClassBaseDiff first(List<? extends UMLClassBaseDiff>... classDiffLists) {
+      for(List<? extends UMLClassBaseDiff> classDiffs : classDiffLists) {
+         if(!classDiffs.isEmpty())
+            return classDiffs.get(0);
+      }
+      return null;
+   }
+
    public boolean isSubclassOf(String subclass, String finalSuperclass) {
-	   return isSubclassOf(subclass, finalSuperclass, new LinkedHashSet<String>());
+	   List<CrossClassLookup> lookups = crossClassLookups.get();
+	   if(lookups != null) {
+		   //the supertypes are not kept while class diffs are processed concurrently
+		   boolean subclassOf = isSubclassOf(subclass, finalSuperclass, new LinkedHashSet<String>());
+		   lookups.add(() -> isSubclassOf(subclass, finalSuperclass) == subclassOf);
+		   return subclassOf;
+	   }
+	   Set<String> supertypes = supertypeClosures.get(subclass);
+	   if(supertypes == null) {
+		   supertypes = new LinkedHashSet<String>();
+		   collectSupertypes(subclass, new HashSet<String>(), supertypes);
+		   supertypeClosures.put(subclass, supertypes);
+	   }
+	   for(String supertype : supertypes) {
+		   if(looksLikeSameType(supertype, finalSuperclass))
+			   return true;
+	   }
+	   return false;
    }
 
-   private boolean isSubclassOf(String subclass, String finalSuperclass, Set<String> visitedClasses) {
+   //walks the superclasses and interfaces on every call, without the memoized supertypes
+   boolean isSubclassOf(String subclass, String finalSuperclass, Set<String> visitedClasses) {
 	   if(visitedClasses.contains(subclass)) {
 		   return false;
 	   }
 	   else {
 		   visitedClasses.add(subclass);
 	   }
+	   for(UMLType supertype : getDirectSupertypes(subclass)) {
+		   if(checkInheritanceRelationship(supertype, finalSuperclass, visitedClasses)) {
+			   return true;
+		   }
+	   }
+	   return false;
+   }
+
+   private void collectSupertypes(String subclass, Set<String> visitedClasses, Set<String> supertypes) {
+	   if(visitedClasses.add(subclass)) {
+		   for(UMLType supertype : getDirectSupertypes(subclass)) {
+			   supertypes.add(supertype.getClassType());
+			   collectSupertypes(supertype.getClassType(), visitedClasses, supertypes);
+		   }
+	   }
+   }
+
+   //the superclasses and interfaces through which the inheritance relationship is checked from the given class, in the order they are checked
+   private List<UMLType> getDirectSupertypes(String subclass) {
+	   List<UMLType> supertypes = new ArrayList<UMLType>();
 	   UMLClassBaseDiff subclassDiff = getUMLClassDiff(subclass);
 	   if(subclassDiff == null) {
 		   subclassDiff = getUMLClassDiff(UMLType.extractTypeObject(subclass));
@@ -255,31 +384,23 @@ public class UMLModelDiff {
 	   if(subclassDiff != null) {
 		   UMLType superclass = subclassDiff.getSuperclass();
 		   if(superclass != null) {
-			   if(checkInheritanceRelationship(superclass, finalSuperclass, visitedClasses)) {
-				   return true;
-			   }
+			   supertypes.add(superclass);
 		   }
 		   else if(subclassDiff.getOldSuperclass() != null && subclassDiff.getNewSuperclass() != null &&
 				   !subclassDiff.getOldSuperclass().equals(subclassDiff.getNewSuperclass()) && looksLikeAddedClass(subclassDiff.getNewSuperclass()) != null) {
 			   UMLClass addedClass = looksLikeAddedClass(subclassDiff.getNewSuperclass());
 			   if(addedClass.getSuperclass() != null) {
-				   return checkInheritanceRelationship(addedClass.getSuperclass(), finalSuperclass, visitedClasses);
+				   supertypes.add(addedClass.getSuperclass());
+				   return supertypes;
 			   }
 		   }
 		   else if(subclassDiff.getOldSuperclass() == null && subclassDiff.getNewSuperclass() != null && looksLikeAddedClass(subclassDiff.getNewSuperclass()) != null) {
 			   UMLClass addedClass = looksLikeAddedClass(subclassDiff.getNewSuperclass());
-			   return checkInheritanceRelationship(UMLType.extractTypeObject(addedClass.getName()), finalSuperclass, visitedClasses);
-		   }
-		   for(UMLType implementedInterface : subclassDiff.getAddedImplementedInterfaces()) {
-			   if(checkInheritanceRelationship(implementedInterface, finalSuperclass, visitedClasses)) {
-				   return true;
-			   }
-		   }
-		   for(UMLType implementedInterface : subclassDiff.getNextClass().getImplementedInterfaces()) {
-			   if(checkInheritanceRelationship(implementedInterface, finalSuperclass, visitedClasses)) {
-				   return true;
-			   }
+			   supertypes.add(UMLType.extractTypeObject(addedClass.getName()));
+			   return supertypes;
 		   }
+		   supertypes.addAll(subclassDiff.getAddedImplementedInterfaces());
+		   supertypes.addAll(subclassDiff.getNextClass().getImplementedInterfaces());
 	   }
 	   UMLClass addedClass = getAddedClass(subclass);
 	   if(addedClass == null) {
@@ -288,13 +409,10 @@ public class UMLModelDiff {
 	   if(addedClass != null) {
 		   UMLType superclass = addedClass.getSuperclass();
 		   if(superclass != null) {
-			   return checkInheritanceRelationship(superclass, finalSuperclass, visitedClasses);
-		   }
-		   for(UMLType implementedInterface : addedClass.getImplementedInterfaces()) {
-			   if(checkInheritanceRelationship(implementedInterface, finalSuperclass, visitedClasses)) {
-				   return true;
-			   }
+			   supertypes.add(superclass);
+			   return supertypes;
 		   }
+		   supertypes.addAll(addedClass.getImplementedInterfaces());
 	   }
 	   UMLClass removedClass = getRemovedClass(subclass);
 	   if(removedClass == null) {
@@ -303,15 +421,12 @@ public class UMLModelDiff {
 	   if(removedClass != null) {
 		   UMLType superclass = removedClass.getSuperclass();
 		   if(superclass != null) {
-			   return checkInheritanceRelationship(superclass, finalSuperclass, visitedClasses);
-		   }
-		   for(UMLType implementedInterface : removedClass.getImplementedInterfaces()) {
-			   if(checkInheritanceRelationship(implementedInterface, finalSuperclass, visitedClasses)) {
-				   return true;
-			   }
+			   supertypes.add(superclass);
+			   return supertypes;
 		   }
+		   supertypes.addAll(removedClass.getImplementedInterfaces());
 	   }
-	   return false;
+	   return supertypes;
    }
 
    private boolean checkInheritanceRelationship(UMLType superclass, String finalSuperclass, Set<String> visitedClasses) {
@@ -421,6 +536,7 @@ public class UMLModelDiff {
    public void checkForMovedClasses(Map<String, String> renamedFileHints, Set<String> repositoryDirectories, UMLClassMatcher matcher) throws RefactoringMinerTimedOutException {
 	   for(Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext();) {
 		   UMLClass removedClass = removedClassIterator.next();
+		   CommitBudget.check();
 		   TreeSet<UMLClassMoveDiff> diffSet = new TreeSet<UMLClassMoveDiff>(new ClassMoveComparator());
 		   for(Iterator<UMLClass> addedClassIterator = addedClasses.iterator(); addedClassIterator.hasNext();) {
 			   UMLClass addedClass = addedClassIterator.next();
@@ -452,8 +568,10 @@ public class UMLModelDiff {
 			   UMLClassMoveDiff minClassMoveDiff = diffSet.first();
 			   minClassMoveDiff.process();
 			   classMoveDiffList.add(minClassMoveDiff);
+			   classMoveDiffIndex.add(minClassMoveDiff);
 			   addedClasses.remove(minClassMoveDiff.getMovedClass());
 			   removedClassIterator.remove();
+			   supertypeClosures.clear();
 		   }
 	   }
 
@@ -466,10 +584,13 @@ public class UMLModelDiff {
 			   UMLClassMoveDiff classMoveJ = allClassMoves.get(j);
 			   if(classMoveI.isInnerClassMove(classMoveJ)) {
 				   innerClassMoveDiffList.add(classMoveJ);
+				   innerClassMoveDiffIndex.add(classMoveJ);
 			   }
 		   }
 	   }
 	   this.classMoveDiffList.removeAll(innerClassMoveDiffList);
+	   this.classMoveDiffIndex.rebuild(classMoveDiffList);
+	   this.supertypeClosures.clear();
    }
 
    private boolean conflictingMoveOfTopLevelClass(UMLClass removedClass, UMLClass addedClass) {
@@ -490,6 +611,7 @@ public class UMLModelDiff {
    public void checkForRenamedClasses(Map<String, String> renamedFileHints, UMLClassMatcher matcher) throws RefactoringMinerTimedOutException {
       for(Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext();) {
          UMLClass removedClass = removedClassIterator.next();
+         CommitBudget.check();
          TreeSet<UMLClassRenameDiff> diffSet = new TreeSet<UMLClassRenameDiff>(new ClassRenameComparator());
          for(Iterator<UMLClass> addedClassIterator = addedClasses.iterator(); addedClassIterator.hasNext();) {
             UMLClass addedClass = addedClassIterator.next();
@@ -505,8 +627,10 @@ public class UMLModelDiff {
             UMLClassRenameDiff minClassRenameDiff = diffSet.first();
             minClassRenameDiff.process();
             classRenameDiffList.add(minClassRenameDiff);
+            classRenameDiffIndex.add(minClassRenameDiff);
             addedClasses.remove(minClassRenameDiff.getRenamedClass());
             removedClassIterator.remove();
+            supertypeClosures.clear();
          }
       }
       
@@ -517,10 +641,13 @@ public class UMLModelDiff {
          for(UMLClassMoveDiff classMove : allClassMoves) {
             if(classRename.isInnerClassMove(classMove)) {
                innerClassMoveDiffList.add(classMove);
+               innerClassMoveDiffIndex.add(classMove);
             }
          }
       }
       this.classMoveDiffList.removeAll(innerClassMoveDiffList);
+      this.classMoveDiffIndex.rebuild(classMoveDiffList);
+      this.supertypeClosures.clear();
    }
 
    private boolean innerClassWithTheSameName(UMLClass removedClass, UMLClass addedClass) {
@@ -1305,27 +1432,7 @@ public class UMLModelDiff {
          extractMergePatterns(classDiff, mergeMap);
 		 extractRenamePatterns(classDiff, renameMap);
       }
-      Map<RenamePattern, Integer> typeRenamePatternMap = typeRenamePatternMap(refactorings);
-      for(RenamePattern pattern : typeRenamePatternMap.keySet()) {
-    	  if(typeRenamePatternMap.get(pattern) > 1) {
-    		  UMLClass removedClass = looksLikeRemovedClass(UMLType.extractTypeObject(pattern.getBefore()));
-    		  UMLClass addedClass = looksLikeAddedClass(UMLType.extractTypeObject(pattern.getAfter()));
-    		  if(removedClass != null && addedClass != null) {
-    			  UMLClassRenameDiff renameDiff = new UMLClassRenameDiff(removedClass, addedClass, this);
-    			  renameDiff.process();
-    			  refactorings.addAll(renameDiff.getRefactorings());
-    			  extractMergePatterns(renameDiff, mergeMap);
-    			  extractRenamePatterns(renameDiff, renameMap);
-    			  classRenameDiffList.add(renameDiff);
-    			  Refactoring refactoring = null;
-    			  if(renameDiff.samePackage())
-    	    		  refactoring = new RenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
-    	    	  else
-    	    		  refactoring = new MoveAndRenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
-    			  refactorings.add(refactoring);
-    		  }
-    	  }
-      }
+      runPhase(DetectionPhase.CLASS_MOVES_AND_RENAMES, () -> checkForRenamedClassesWithTypeRenamePatterns(refactorings, mergeMap, renameMap));
       for(MergeVariableReplacement merge : mergeMap.keySet()) {
     	  UMLClassBaseDiff diff = null;
     	  for(String mergedVariable : merge.getMergedVariables()) {
@@ -1463,20 +1570,28 @@ public class UMLModelDiff {
 			 }
 		 }
 	  }
-	  refactorings.addAll(identifyExtractSuperclassRefactorings());
-	  refactorings.addAll(identifyExtractClassRefactorings(commonClassDiffList));
-      refactorings.addAll(identifyExtractClassRefactorings(classMoveDiffList));
-      refactorings.addAll(identifyExtractClassRefactorings(innerClassMoveDiffList));
-      refactorings.addAll(identifyExtractClassRefactorings(classRenameDiffList));
-      checkForOperationMovesBetweenCommonClasses();
-      checkForOperationMovesIncludingAddedClasses();
-      checkForOperationMovesIncludingRemovedClasses();
-      checkForExtractedAndMovedOperations(getOperationBodyMappersInCommonClasses(), getAddedAndExtractedOperationsInCommonClasses());
-      checkForExtractedAndMovedOperations(getOperationBodyMappersInMovedAndRenamedClasses(), getAddedOperationsInMovedAndRenamedClasses());
-      checkForMovedAndInlinedOperations(getOperationBodyMappersInCommonClasses(), getRemovedAndInlinedOperationsInCommonClasses());
-      refactorings.addAll(checkForAttributeMovesBetweenCommonClasses());
-      refactorings.addAll(checkForAttributeMovesIncludingAddedClasses());
-      refactorings.addAll(checkForAttributeMovesIncludingRemovedClasses());
+      runPhase(DetectionPhase.CLASS_DIFFS, () -> {
+         refactorings.addAll(identifyExtractSuperclassRefactorings());
+         refactorings.addAll(identifyExtractClassRefactorings(commonClassDiffList));
+         refactorings.addAll(identifyExtractClassRefactorings(classMoveDiffList));
+         refactorings.addAll(identifyExtractClassRefactorings(innerClassMoveDiffList));
+         refactorings.addAll(identifyExtractClassRefactorings(classRenameDiffList));
+      });
+      runPhase(DetectionPhase.OPERATION_MOVES, () -> {
+         checkForOperationMovesBetweenCommonClasses();
+         checkForOperationMovesIncludingAddedClasses();
+         checkForOperationMovesIncludingRemovedClasses();
+      });
+      runPhase(DetectionPhase.EXTRACT_AND_INLINE, () -> {
+         checkForExtractedAndMovedOperations(getOperationBodyMappersInCommonClasses(), getAddedAndExtractedOperationsInCommonClasses());
+         checkForExtractedAndMovedOperations(getOperationBodyMappersInMovedAndRenamedClasses(), getAddedOperationsInMovedAndRenamedClasses());
+         checkForMovedAndInlinedOperations(getOperationBodyMappersInCommonClasses(), getRemovedAndInlinedOperationsInCommonClasses());
+      });
+      runPhase(DetectionPhase.ATTRIBUTE_MOVES, () -> {
+         refactorings.addAll(checkForAttributeMovesBetweenCommonClasses());
+         refactorings.addAll(checkForAttributeMovesIncludingAddedClasses());
+         refactorings.addAll(checkForAttributeMovesIncludingRemovedClasses());
+      });
       refactorings.addAll(this.refactorings);
       for(UMLClassDiff classDiff : commonClassDiffList) {
     	  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
@@ -1493,6 +1608,33 @@ public class UMLModelDiff {
       return new ArrayList<Refactoring>(refactorings);
    }
 
+   private void checkForRenamedClassesWithTypeRenamePatterns(Set<Refactoring> refactorings,
+		   Map<MergeVariableReplacement, Set<CandidateMergeVariableRefactoring>> mergeMap, Map<Replacement, Set<CandidateAttributeRefactoring>> renameMap) throws RefactoringMinerTimedOutException {
+      Map<RenamePattern, Integer> typeRenamePatternMap = typeRenamePatternMap(refactorings);
+      for(RenamePattern pattern : typeRenamePatternMap.keySet()) {
+    	  if(typeRenamePatternMap.get(pattern) > 1) {
+    		  UMLClass removedClass = looksLikeRemovedClass(UMLType.extractTypeObject(pattern.getBefore()));
+    		  UMLClass addedClass = looksLikeAddedClass(UMLType.extractTypeObject(pattern.getAfter()));
+    		  if(removedClass != null && addedClass != null) {
+    			  UMLClassRenameDiff renameDiff = new UMLClassRenameDiff(removedClass, addedClass, this);
+    			  renameDiff.process();
+    			  refactorings.addAll(renameDiff.getRefactorings());
+    			  extractMergePatterns(renameDiff, mergeMap);
+    			  extractRenamePatterns(renameDiff, renameMap);
+    			  classRenameDiffList.add(renameDiff);
+    			  classRenameDiffIndex.add(renameDiff);
+    			  supertypeClosures.clear();
+    			  Refactoring refactoring = null;
+    			  if(renameDiff.samePackage())
+    	    		  refactoring = new RenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
+    	    	  else
+    	    		  refactoring = new MoveAndRenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
+    			  refactorings.add(refactoring);
+    		  }
+    	  }
+      }
+   }
+
    private Map<RenamePattern, Integer> typeRenamePatternMap(Set<Refactoring> refactorings) {
 	  Map<RenamePattern, Integer> typeRenamePatternMap = new LinkedHashMap<RenamePattern, Integer>();
 	  for(Refactoring ref : refactorings) {
@@ -1658,6 +1800,27 @@ public class UMLModelDiff {
    }
 
    public List<UMLOperationBodyMapper> findMappersWithMatchingSignature2(UMLOperation operation2) {
+	   List<UMLOperationBodyMapper> mappers = findMappersWithMatchingSignature2InClassDiffs(operation2);
+	   List<CrossClassLookup> lookups = crossClassLookups.get();
+	   if(lookups != null) {
+		   lookups.add(() -> sameElements(findMappersWithMatchingSignature2InClassDiffs(operation2), mappers));
+	   }
+	   return mappers;
+   }
+
+   private static boolean sameElements(List<?> list1, List<?> list2) {
+	   if(list1.size() != list2.size()) {
+		   return false;
+	   }
+	   for(int i=0; i<list1.size(); i++) {
+		   if(list1.get(i) != list2.get(i)) {
+			   return false;
+		   }
+	   }
+	   return true;
+   }
+
+   private List<UMLOperationBodyMapper> findMappersWithMatchingSignature2InClassDiffs(UMLOperation operation2) {
 	   List<UMLOperationBodyMapper> mappers = new ArrayList<UMLOperationBodyMapper>();
 	   for(UMLClassDiff classDiff : commonClassDiffList) {
 		   UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignature2(operation2);
@@ -1732,6 +1895,7 @@ public class UMLModelDiff {
    private void checkForMovedAndInlinedOperations(List<UMLOperationBodyMapper> mappers, List<UMLOperation> removedOperations) throws RefactoringMinerTimedOutException {
 	   for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
 		   UMLOperation removedOperation = removedOperationIterator.next();
+		   CommitBudget.check();
 		   for(UMLOperationBodyMapper mapper : mappers) {
 			   if(!mapper.getNonMappedLeavesT2().isEmpty() || !mapper.getNonMappedInnerNodesT2().isEmpty() || !mapper.getReplacementsInvolvingMethodInvocation().isEmpty()) {
 				   List<OperationInvocation> operationInvocations = mapper.getOperation1().getAllOperationInvocations();
@@ -1812,6 +1976,7 @@ public class UMLModelDiff {
    private void checkForExtractedAndMovedOperations(List<UMLOperationBodyMapper> mappers, List<UMLOperation> addedOperations) throws RefactoringMinerTimedOutException {
       for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
     	  UMLOperation addedOperation = addedOperationIterator.next();
+    	  CommitBudget.check();
     	  for(UMLOperationBodyMapper mapper : mappers) {
     		  if((mapper.nonMappedElementsT1() > 0 || !mapper.getReplacementsInvolvingMethodInvocation().isEmpty()) && !mapper.containsExtractOperationRefactoring(addedOperation)) {
                List<OperationInvocation> operationInvocations = ExtractOperationDetection.getInvocationsInSourceOperationAfterExtraction(mapper);
@@ -2078,9 +2243,11 @@ public class UMLModelDiff {
 	   if(addedOperations.size() <= removedOperations.size()) {
 	      for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
 	         UMLOperation addedOperation = addedOperationIterator.next();
+	         CommitBudget.check();
 	         TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = new TreeMap<Integer, List<UMLOperationBodyMapper>>();
-	         for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
+	         for(Iterator<UMLOperation> removedOperationIterator = operationMoveCandidateFilter.candidates(addedOperation, removedOperations).iterator(); removedOperationIterator.hasNext();) {
 	            UMLOperation removedOperation = removedOperationIterator.next();
+	            CommitBudget.check();
 	            
 	            UMLOperationBodyMapper operationBodyMapper = new UMLOperationBodyMapper(removedOperation, addedOperation, null);
 	            int mappings = operationBodyMapper.mappingsWithoutBlocks();
@@ -2163,9 +2330,11 @@ public class UMLModelDiff {
       else {
     	  for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
 	         UMLOperation removedOperation = removedOperationIterator.next();
+	         CommitBudget.check();
 	         TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = new TreeMap<Integer, List<UMLOperationBodyMapper>>();
-	         for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
+	         for(Iterator<UMLOperation> addedOperationIterator = operationMoveCandidateFilter.candidates(removedOperation, addedOperations).iterator(); addedOperationIterator.hasNext();) {
 	            UMLOperation addedOperation = addedOperationIterator.next();
+	            CommitBudget.check();
 	            
 	            UMLOperationBodyMapper operationBodyMapper = new UMLOperationBodyMapper(removedOperation, addedOperation, null);
 	            int mappings = operationBodyMapper.mappingsWithoutBlocks();
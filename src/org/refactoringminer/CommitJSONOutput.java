@@ -0,0 +1,72 @@
+package org.refactoringminer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.util.RefactoringJSONWriter;
+
+/**
+ * Writes the refactorings of the analyzed commits as JSON, either as a single document with all commits, or as one JSON object per line.
+ * Each commit is written as soon as it is analyzed, so that the memory held does not grow with the number of analyzed commits.
+ */
+class CommitJSONOutput implements Closeable {
+	private final Writer writer;
+	private final RefactoringJSONWriter jsonWriter;
+	private final boolean closeWriter;
+	private final boolean lineDelimited;
+	private final int flushInterval;
+	private int commitCount;
+
+	//with a flush interval of n, the writer is flushed after every n commits, while with 0 it is flushed only at the end
+	CommitJSONOutput(Writer writer, boolean closeWriter, boolean lineDelimited, int flushInterval) {
+		this.writer = writer;
+		this.jsonWriter = new RefactoringJSONWriter(writer, !lineDelimited);
+		this.closeWriter = closeWriter;
+		this.lineDelimited = lineDelimited;
+		this.flushInterval = flushInterval;
+	}
+
+	void start() throws IOException {
+		if(!lineDelimited) {
+			jsonWriter.startCommits();
+		}
+	}
+
+	//called by the refactoring handlers, which cannot throw checked exceptions
+	void commit(String cloneURL, String commitId, List<Refactoring> refactorings) {
+		try {
+			jsonWriter.writeCommit(cloneURL, commitId, refactorings);
+			if(lineDelimited) {
+				writer.write("\n");
+			}
+			commitCount++;
+			if(flushInterval > 0 && commitCount % flushInterval == 0) {
+				writer.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void end() throws IOException {
+		if(!lineDelimited) {
+			jsonWriter.endCommits();
+			writer.write(System.lineSeparator());
+		}
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(closeWriter) {
+			writer.close();
+		}
+		else {
+			writer.flush();
+		}
+	}
+}
@@ -1,5 +1,11 @@
 package org.refactoringminer;
 
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.jgit.lib.Repository;
@@ -11,8 +17,12 @@ import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
 import org.refactoringminer.util.GitServiceImpl;
 
 public class RefactoringMiner {
+	private static boolean lineDelimitedOutput = false;
+	private static String outputFile = null;
+	private static int flushInterval = -1;
 
 	public static void main(String[] args) throws Exception {
+		args = parseOutputOptions(args);
 		if (args.length < 1) {
 			throw argumentException();
 		}
@@ -41,6 +51,40 @@ public class RefactoringMiner {
 		}
 	}
 
+	//the output options precede the command and are removed from the returned arguments
+	private static String[] parseOutputOptions(String[] args) {
+		int i = 0;
+		while (i < args.length) {
+			if (args[i].equalsIgnoreCase("-ndjson")) {
+				lineDelimitedOutput = true;
+				i++;
+			} else if (args[i].equalsIgnoreCase("-o") && i + 1 < args.length) {
+				outputFile = args[i + 1];
+				i += 2;
+			} else if (args[i].equalsIgnoreCase("-flush") && i + 1 < args.length) {
+				flushInterval = Integer.parseInt(args[i + 1]);
+				if (flushInterval < 0) {
+					throw argumentException();
+				}
+				i += 2;
+			} else {
+				break;
+			}
+		}
+		return Arrays.copyOfRange(args, i, args.length);
+	}
+
+	private static CommitJSONOutput openOutput() throws IOException {
+		//by default, a line-delimited output is flushed after each commit, while a JSON document is flushed at the end
+		int interval = flushInterval >= 0 ? flushInterval : (lineDelimitedOutput ? 1 : 0);
+		if (outputFile != null) {
+			BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8));
+			return new CommitJSONOutput(writer, true, lineDelimitedOutput, interval);
+		}
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(System.out));
+		return new CommitJSONOutput(writer, false, lineDelimitedOutput, interval);
+	}
+
 	private static void detectAll(String[] args) throws Exception {
 		if (args.length > 3) {
 			throw argumentException();
@@ -51,20 +95,14 @@ public class RefactoringMiner {
 			branch = args[2];
 		}
 		GitService gitService = new GitServiceImpl();
-		try (Repository repo = gitService.openRepository(folder)) {
+		try (Repository repo = gitService.openRepository(folder); CommitJSONOutput output = openOutput()) {
 			String gitURL = repo.getConfig().getString("remote", "origin", "url");
 			GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-			StringBuilder sb = new StringBuilder();
-			startJSON(sb);
+			output.start();
 			detector.detectAll(repo, branch, new RefactoringHandler() {
-				private int commitCount = 0;
 				@Override
 				public void handle(String commitId, List<Refactoring> refactorings) {
-					if(commitCount > 0) {
-						sb.append(",").append("\n");
-					}
-					commitJSON(sb, gitURL, commitId, refactorings);
-					commitCount++;
+					output.commit(gitURL, commitId, refactorings);
 				}
 
 				@Override
@@ -79,8 +117,7 @@ public class RefactoringMiner {
 					e.printStackTrace(System.err);
 				}
 			});
-			endJSON(sb);
-			System.out.println(sb.toString());
+			output.end();
 		}
 	}
 
@@ -92,20 +129,14 @@ public class RefactoringMiner {
 		String startCommit = args[2];
 		String endCommit = (args.length == 4) ? args[3] : null;
 		GitService gitService = new GitServiceImpl();
-		try (Repository repo = gitService.openRepository(folder)) {
+		try (Repository repo = gitService.openRepository(folder); CommitJSONOutput output = openOutput()) {
 			String gitURL = repo.getConfig().getString("remote", "origin", "url");
 			GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-			StringBuilder sb = new StringBuilder();
-			startJSON(sb);
+			output.start();
 			detector.detectBetweenCommits(repo, startCommit, endCommit, new RefactoringHandler() {
-				private int commitCount = 0;
 				@Override
 				public void handle(String commitId, List<Refactoring> refactorings) {
-					if(commitCount > 0) {
-						sb.append(",").append("\n");
-					}
-					commitJSON(sb, gitURL, commitId, refactorings);
-					commitCount++;
+					output.commit(gitURL, commitId, refactorings);
 				}
 
 				@Override
@@ -120,8 +151,7 @@ public class RefactoringMiner {
 					e.printStackTrace(System.err);
 				}
 			});
-			endJSON(sb);
-			System.out.println(sb.toString());
+			output.end();
 		}
 	}
 
@@ -133,20 +163,14 @@ public class RefactoringMiner {
 		String startTag = args[2];
 		String endTag = (args.length == 4) ? args[3] : null;
 		GitService gitService = new GitServiceImpl();
-		try (Repository repo = gitService.openRepository(folder)) {
+		try (Repository repo = gitService.openRepository(folder); CommitJSONOutput output = openOutput()) {
 			String gitURL = repo.getConfig().getString("remote", "origin", "url");
 			GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-			StringBuilder sb = new StringBuilder();
-			startJSON(sb);
+			output.start();
 			detector.detectBetweenTags(repo, startTag, endTag, new RefactoringHandler() {
-				private int commitCount = 0;
 				@Override
 				public void handle(String commitId, List<Refactoring> refactorings) {
-					if(commitCount > 0) {
-						sb.append(",").append("\n");
-					}
-					commitJSON(sb, gitURL, commitId, refactorings);
-					commitCount++;
+					output.commit(gitURL, commitId, refactorings);
 				}
 
 				@Override
@@ -161,8 +185,7 @@ public class RefactoringMiner {
 					e.printStackTrace(System.err);
 				}
 			});
-			endJSON(sb);
-			System.out.println(sb.toString());
+			output.end();
 		}
 	}
 
@@ -173,15 +196,14 @@ public class RefactoringMiner {
 		String folder = args[1];
 		String commitId = args[2];
 		GitService gitService = new GitServiceImpl();
-		try (Repository repo = gitService.openRepository(folder)) {
+		try (Repository repo = gitService.openRepository(folder); CommitJSONOutput output = openOutput()) {
 			String gitURL = repo.getConfig().getString("remote", "origin", "url");
 			GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-			StringBuilder sb = new StringBuilder();
-			startJSON(sb);
+			output.start();
 			detector.detectAtCommit(repo, commitId, new RefactoringHandler() {
 				@Override
 				public void handle(String commitId, List<Refactoring> refactorings) {
-					commitJSON(sb, gitURL, commitId, refactorings);
+					output.commit(gitURL, commitId, refactorings);
 				}
 
 				@Override
@@ -190,8 +212,7 @@ public class RefactoringMiner {
 					e.printStackTrace(System.err);
 				}
 			});
-			endJSON(sb);
-			System.out.println(sb.toString());
+			output.end();
 		}
 	}
 
@@ -203,22 +224,22 @@ public class RefactoringMiner {
 		String commitId = args[2];
 		int timeout = Integer.parseInt(args[3]);
 		GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-		StringBuilder sb = new StringBuilder();
-		startJSON(sb);
-		detector.detectAtCommit(gitURL, commitId, new RefactoringHandler() {
-			@Override
-			public void handle(String commitId, List<Refactoring> refactorings) {
-				commitJSON(sb, gitURL, commitId, refactorings);
-			}
+		try (CommitJSONOutput output = openOutput()) {
+			output.start();
+			detector.detectAtCommit(gitURL, commitId, new RefactoringHandler() {
+				@Override
+				public void handle(String commitId, List<Refactoring> refactorings) {
+					output.commit(gitURL, commitId, refactorings);
+				}
 
-			@Override
-			public void handleException(String commit, Exception e) {
-				System.err.println("Error processing commit " + commit);
-				e.printStackTrace(System.err);
-			}
-		}, timeout);
-		endJSON(sb);
-		System.out.println(sb.toString());
+				@Override
+				public void handleException(String commit, Exception e) {
+					System.err.println("Error processing commit " + commit);
+					e.printStackTrace(System.err);
+				}
+			}, timeout);
+			output.end();
+		}
 	}
 
 	private static void detectAtGitHubPullRequest(String[] args) throws Exception {
@@ -229,59 +250,22 @@ public class RefactoringMiner {
 		int pullId = Integer.parseInt(args[2]);
 		int timeout = Integer.parseInt(args[3]);
 		GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-		StringBuilder sb = new StringBuilder();
-		startJSON(sb);
-		detector.detectAtPullRequest(gitURL, pullId, new RefactoringHandler() {
-			private int commitCount = 0;
-			@Override
-			public void handle(String commitId, List<Refactoring> refactorings) {
-				if(commitCount > 0) {
-					sb.append(",").append("\n");
+		try (CommitJSONOutput output = openOutput()) {
+			output.start();
+			detector.detectAtPullRequest(gitURL, pullId, new RefactoringHandler() {
+				@Override
+				public void handle(String commitId, List<Refactoring> refactorings) {
+					output.commit(gitURL, commitId, refactorings);
 				}
-				commitJSON(sb, gitURL, commitId, refactorings);
-				commitCount++;
-			}
-
-			@Override
-			public void handleException(String commit, Exception e) {
-				System.err.println("Error processing commit " + commit);
-				e.printStackTrace(System.err);
-			}
-		}, timeout);
-		endJSON(sb);
-		System.out.println(sb.toString());
-	}
 
-	private static void commitJSON(StringBuilder sb, String cloneURL, String currentCommitId, List<Refactoring> refactoringsAtRevision) {
-		sb.append("{").append("\n");
-		sb.append("\t").append("\"").append("repository").append("\"").append(": ").append("\"").append(cloneURL).append("\"").append(",").append("\n");
-		sb.append("\t").append("\"").append("sha1").append("\"").append(": ").append("\"").append(currentCommitId).append("\"").append(",").append("\n");
-		String url = GitHistoryRefactoringMinerImpl.extractCommitURL(cloneURL, currentCommitId);
-		sb.append("\t").append("\"").append("url").append("\"").append(": ").append("\"").append(url).append("\"").append(",").append("\n");
-		sb.append("\t").append("\"").append("refactorings").append("\"").append(": ");
-		sb.append("[");
-		int counter = 0;
-		for(Refactoring refactoring : refactoringsAtRevision) {
-			sb.append(refactoring.toJSON());
-			if(counter < refactoringsAtRevision.size()-1) {
-				sb.append(",");
-			}
-			sb.append("\n");
-			counter++;
+				@Override
+				public void handleException(String commit, Exception e) {
+					System.err.println("Error processing commit " + commit);
+					e.printStackTrace(System.err);
+				}
+			}, timeout);
+			output.end();
 		}
-		sb.append("]").append("\n");
-		sb.append("}");
-	}
-
-	private static void startJSON(StringBuilder sb) {
-		sb.append("{").append("\n");
-		sb.append("\"").append("commits").append("\"").append(": ");
-		sb.append("[").append("\n");
-	}
-
-	private static void endJSON(StringBuilder sb) {
-		sb.append("]").append("\n");
-		sb.append("}");
 	}
 
 	private static void printTips() {
@@ -298,6 +282,13 @@ public class RefactoringMiner {
 				"-gc <git-URL> <commit-sha1> <timeout>\t\t\t\tDetect refactorings at specified commit <commit-sha1> for project <git-URL> within the given <timeout> in seconds. All required information is obtained directly from GitHub using the OAuth token in github-oauth.properties");
 		System.out.println(
 				"-gp <git-URL> <pull-request> <timeout>\t\t\t\tDetect refactorings at specified pull request <pull-request> for project <git-URL> within the given <timeout> in seconds for each commit in the pull request. All required information is obtained directly from GitHub using the OAuth token in github-oauth.properties");
+		System.out.println("Output options, given before any of the above:");
+		System.out.println(
+				"-ndjson\t\t\t\t\t\t\t\tWrite each commit as a single-line JSON object as soon as it is analyzed, instead of a JSON document with all commits");
+		System.out.println(
+				"-o <file>\t\t\t\t\t\t\tWrite the output to <file> instead of the standard output");
+		System.out.println(
+				"-flush <commits>\t\t\t\t\t\tFlush the output after every <commits> commits, or only when the buffer fills up if 0. By default, -ndjson flushes after each commit");
 	}
 
 	private static IllegalArgumentException argumentException() {
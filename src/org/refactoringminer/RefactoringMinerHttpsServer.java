@@ -27,6 +27,7 @@ import org.refactoringminer.api.GitHistoryRefactoringMiner;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringHandler;
 import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.util.RefactoringJSONWriter;
 
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
@@ -113,13 +114,17 @@ public class RefactoringMinerHttpsServer {
 				}
 			}, timeout);
 
-			String response = JSON(gitURL, commitId, detectedRefactorings);
-			System.out.println(response);
+			System.out.println(detectedRefactorings.size() + " refactorings detected at commit " + commitId);
 			exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-			exchange.sendResponseHeaders(200, response.length());
-			OutputStream os = exchange.getResponseBody();
-			os.write(response.getBytes());
-			os.close();
+			//the response is written while it is serialized, so its length is not known in advance and it is sent in chunks
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream os = exchange.getResponseBody()) {
+				RefactoringJSONWriter writer = new RefactoringJSONWriter(os, true);
+				writer.startCommits();
+				writer.writeCommit(gitURL, commitId, detectedRefactorings);
+				writer.endCommits();
+				writer.flush();
+			}
 		}
 	}
 
@@ -137,34 +142,6 @@ public class RefactoringMinerHttpsServer {
 		return result;
 	}
 
-	private static String JSON(String gitURL, String currentCommitId, List<Refactoring> refactoringsAtRevision) {
-		StringBuilder sb = new StringBuilder();
-		sb.append("{").append("\n");
-		sb.append("\"").append("commits").append("\"").append(": ");
-		sb.append("[");
-		sb.append("{");
-		sb.append("\t").append("\"").append("repository").append("\"").append(": ").append("\"").append(gitURL).append("\"").append(",").append("\n");
-		sb.append("\t").append("\"").append("sha1").append("\"").append(": ").append("\"").append(currentCommitId).append("\"").append(",").append("\n");
-		String url = GitHistoryRefactoringMinerImpl.extractCommitURL(gitURL, currentCommitId);
-		sb.append("\t").append("\"").append("url").append("\"").append(": ").append("\"").append(url).append("\"").append(",").append("\n");
-		sb.append("\t").append("\"").append("refactorings").append("\"").append(": ");
-		sb.append("[");
-		int counter = 0;
-		for(Refactoring refactoring : refactoringsAtRevision) {
-			sb.append(refactoring.toJSON());
-			if(counter < refactoringsAtRevision.size()-1) {
-				sb.append(",");
-			}
-			sb.append("\n");
-			counter++;
-		}
-		sb.append("]");
-		sb.append("}");
-		sb.append("]").append("\n");
-		sb.append("}");
-		return sb.toString();
-	}
-
 	private static void printRequestInfo(HttpExchange exchange) {
 		System.out.println("-- headers --");
 		Headers requestHeaders = exchange.getRequestHeaders();
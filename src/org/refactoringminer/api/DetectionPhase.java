@@ -0,0 +1,13 @@
+package org.refactoringminer.api;
+
+/**
+ * The phases of the detection of the refactorings of a commit, in the order they run.
+ * When the budget of a commit runs out and partial results are allowed, the phases not completed are reported as skipped.
+ */
+public enum DetectionPhase {
+	CLASS_MOVES_AND_RENAMES,
+	CLASS_DIFFS,
+	OPERATION_MOVES,
+	EXTRACT_AND_INLINE,
+	ATTRIBUTE_MOVES;
+}
@@ -73,7 +73,7 @@ public interface GitHistoryRefactoringMiner {
 	 * @param repository A git repository (from JGit library).
 	 * @param commitId The SHA key that identifies the commit.
 	 * @param handler A handler object that is responsible to process the detected refactorings.
-	 * @param timeout A timeout, in seconds. When timeout is reached, the operation stops and returns no refactorings.
+	 * @param timeout A timeout, in seconds. When timeout is reached, the operation stops, returns no refactorings and reports a {@link RefactoringMinerTimedOutException} to {@link RefactoringHandler#handleException}.
 	 */
 	void detectAtCommit(Repository repository, String commitId, RefactoringHandler handler, int timeout);
 
@@ -83,7 +83,7 @@ public interface GitHistoryRefactoringMiner {
 	 * @param gitURL The git URL of the repository.
 	 * @param commitId The SHA key that identifies the commit.
 	 * @param handler A handler object that is responsible to process the detected refactorings.
-	 * @param timeout A timeout, in seconds. When timeout is reached, the operation stops and returns no refactorings.
+	 * @param timeout A timeout, in seconds. When timeout is reached, the operation stops, returns no refactorings and reports a {@link RefactoringMinerTimedOutException} to {@link RefactoringHandler#handleException}.
 	 */
 	void detectAtCommit(String gitURL, String commitId, RefactoringHandler handler, int timeout);
 
@@ -93,7 +93,7 @@ public interface GitHistoryRefactoringMiner {
 	 * @param gitURL The git URL of the repository.
 	 * @param pullRequest The pull request ID.
 	 * @param handler A handler object that is responsible to process the detected refactorings.
-	 * @param timeout A timeout, in seconds, per commit in the pull request. When timeout is reached, the operation stops and returns no refactorings.
+	 * @param timeout A timeout, in seconds, per commit in the pull request. When timeout is reached, the operation stops, returns no refactorings and reports a {@link RefactoringMinerTimedOutException} to {@link RefactoringHandler#handleException}.
 	 * @throws Exception propagated from org.kohsuke.github API
 	 */
 	void detectAtPullRequest(String gitURL, int pullRequest, RefactoringHandler handler, int timeout) throws Exception;
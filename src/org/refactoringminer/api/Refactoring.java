@@ -1,12 +1,13 @@
 package org.refactoringminer.api;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.Set;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
-
-import com.fasterxml.jackson.core.io.JsonStringEncoder;
-import com.fasterxml.jackson.core.util.BufferRecyclers;
+import org.refactoringminer.util.RefactoringJSONWriter;
 
 public interface Refactoring extends Serializable, CodeRangeProvider {
 
@@ -27,16 +28,12 @@ public interface Refactoring extends Serializable, CodeRangeProvider {
 	public Set<ImmutablePair<String, String>> getInvolvedClassesAfterRefactoring();
 	
 	default public String toJSON() {
-		StringBuilder sb = new StringBuilder();
-		JsonStringEncoder encoder = BufferRecyclers.getJsonStringEncoder();
-		sb.append("{").append("\n");
-		sb.append("\t").append("\"").append("type").append("\"").append(": ").append("\"").append(getName()).append("\"").append(",").append("\n");
-		sb.append("\t").append("\"").append("description").append("\"").append(": ").append("\"");
-		encoder.quoteAsString(toString().replace('\t', ' '), sb);
-		sb.append("\"").append(",").append("\n");
-		sb.append("\t").append("\"").append("leftSideLocations").append("\"").append(": ").append(leftSide()).append(",").append("\n");
-		sb.append("\t").append("\"").append("rightSideLocations").append("\"").append(": ").append(rightSide()).append("\n");
-		sb.append("}");
-		return sb.toString();
+		StringWriter writer = new StringWriter();
+		try {
+			new RefactoringJSONWriter(writer).writeRefactoring(this);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return writer.toString();
 	}
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.refactoringminer.api;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Handler object that works in conjunction with {@link org.refactoringminer.api.GitHistoryRefactoringMiner}.
@@ -28,6 +29,16 @@ public abstract class RefactoringHandler {
 	 */
 	public void handle(String commitId, List<Refactoring> refactorings) {}
 
+	/**
+	 * This method is called before {@link #handle(String, List)}, when the analysis of the given commit ran out of its time
+	 * and the miner is set to return partial results.
+	 * You may override this method to record that the refactorings detected in the commit are incomplete.
+	 * 
+	 * @param commitId The sha of the analyzed commit.
+	 * @param skippedPhases The phases of the analysis that were skipped or not completed.
+	 */
+	public void handlePartialResults(String commitId, Set<DetectionPhase> skippedPhases) {}
+
 	/**
      * This method is called whenever an exception is thrown during the analysis of the given commit.
      * You should override this method to do your custom logic in the case of exceptions (e.g. skip or rethrow).
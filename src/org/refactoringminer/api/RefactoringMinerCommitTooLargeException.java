@@ -0,0 +1,9 @@
+package org.refactoringminer.api;
+
+public class RefactoringMinerCommitTooLargeException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public RefactoringMinerCommitTooLargeException(String message) {
+		super(message);
+	}
+}
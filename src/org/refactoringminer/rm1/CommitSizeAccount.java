@@ -0,0 +1,124 @@
+package org.refactoringminer.rm1;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.refactoringminer.api.RefactoringMinerCommitTooLargeException;
+
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLOperation;
+
+/**
+ * Accounts for the estimated size of the models of a commit, namely the number of their files, source bytes and statements.
+ * The files and source bytes are accounted for from the blob sizes before any file is loaded, and the statements as each file model is added,
+ * so that a commit exceeding one of the limits is abandoned before its models exhaust the heap. A limit of 0 means no limit.
+ * As each file model is added, the heap the JVM used after its last collections is also compared with a fraction of the maximum heap,
+ * to account for the heap pressure the estimates miss, such as the other commits in flight.
+ * The heap used after a collection holds the reachable objects only, so that the garbage accumulated since does not decide the result.
+ */
+class CommitSizeAccount {
+	private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private static final List<MemoryPoolMXBean> heapPools = heapPools();
+	private final int maximumFiles;
+	private final long maximumSourceBytes;
+	private final long maximumStatements;
+	private final double maximumHeapUsage;
+	private int files;
+	private long sourceBytes;
+	private long statements;
+	//the heap used after collection that exceeded the limit, kept so that the commit is abandoned even if a later collection frees more
+	private long exceedingHeapUsed;
+	private long maximumHeap;
+
+	CommitSizeAccount(int maximumFiles, long maximumSourceBytes, long maximumStatements, double maximumHeapUsage) {
+		this.maximumFiles = maximumFiles;
+		this.maximumSourceBytes = maximumSourceBytes;
+		this.maximumStatements = maximumStatements;
+		this.maximumHeapUsage = maximumHeapUsage;
+	}
+
+	void addFiles(ObjectReader reader, Collection<ObjectId> blobIds) throws IOException, RefactoringMinerCommitTooLargeException {
+		files += blobIds.size();
+		if (maximumFiles > 0 && files > maximumFiles) {
+			throw new RefactoringMinerCommitTooLargeException(String.format("%d files exceed the limit of %d files", files, maximumFiles));
+		}
+		if (maximumSourceBytes > 0) {
+			for (ObjectId blobId : blobIds) {
+				sourceBytes += reader.getObjectSize(blobId, Constants.OBJ_BLOB);
+			}
+			if (sourceBytes > maximumSourceBytes) {
+				throw new RefactoringMinerCommitTooLargeException(String.format("%d source bytes exceed the limit of %d bytes", sourceBytes, maximumSourceBytes));
+			}
+		}
+	}
+
+	synchronized void addStatements(UMLModel fileModel) throws RefactoringMinerCommitTooLargeException {
+		tryAddStatements(fileModel);
+		checkLimits();
+	}
+
+	//called concurrently by the parsing tasks, returns false once the statements or the used heap exceed their limit
+	synchronized boolean tryAddStatements(UMLModel fileModel) {
+		if (maximumStatements > 0) {
+			for (UMLClass umlClass : fileModel.getClassList()) {
+				for (UMLOperation operation : umlClass.getOperations()) {
+					if (operation.getBody() != null) {
+						statements += operation.getBody().statementCount();
+					}
+				}
+			}
+		}
+		if (maximumHeapUsage > 0 && exceedingHeapUsed == 0) {
+			//the maximum heap is undefined for some collectors
+			long max = memory.getHeapMemoryUsage().getMax();
+			long used = heapUsedAfterCollection();
+			if (max > 0 && used > maximumHeapUsage * max) {
+				exceedingHeapUsed = used;
+				maximumHeap = max;
+			}
+		}
+		return (maximumStatements <= 0 || statements <= maximumStatements) && exceedingHeapUsed == 0;
+	}
+
+	synchronized void checkLimits() throws RefactoringMinerCommitTooLargeException {
+		if (maximumStatements > 0 && statements > maximumStatements) {
+			throw new RefactoringMinerCommitTooLargeException(String.format("%d statements exceed the limit of %d statements", statements, maximumStatements));
+		}
+		if (exceedingHeapUsed > 0) {
+			throw new RefactoringMinerCommitTooLargeException(String.format("%d heap bytes used after collection exceed %.0f%% of the maximum heap of %d bytes", exceedingHeapUsed, 100 * maximumHeapUsage, maximumHeap));
+		}
+	}
+
+	//the sum of the heap pools as their last collection left them, a pool not collected yet counting as empty
+	private static long heapUsedAfterCollection() {
+		long used = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			MemoryUsage usage = pool.getCollectionUsage();
+			if (usage != null) {
+				used += usage.getUsed();
+			}
+		}
+		return used;
+	}
+
+	private static List<MemoryPoolMXBean> heapPools() {
+		List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+}
@@ -2,6 +2,7 @@ package org.refactoringminer.rm1;
 
 import gr.uom.java.xmi.UMLModel;
 import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.diff.UMLModelDiff;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -12,38 +13,47 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AsyncObjectLoaderQueue;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.kohsuke.github.GHCommit;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHPullRequestCommitDetail;
@@ -53,12 +63,14 @@ import org.kohsuke.github.GHTreeEntry;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.PagedIterable;
 import org.refactoringminer.api.Churn;
+import org.refactoringminer.api.DetectionPhase;
 import org.refactoringminer.api.GitHistoryRefactoringMiner;
 import org.refactoringminer.api.GitService;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringHandler;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.util.CommitBudget;
 import org.refactoringminer.util.GitServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +80,24 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 	Logger logger = LoggerFactory.getLogger(GitHistoryRefactoringMinerImpl.class);
 	private Set<RefactoringType> refactoringTypesToConsider = null;
 	private GitHub gitHub;
+	private int numberOfThreads = 1;
+	private boolean commitOrderPreserved = true;
+	private ParsedFileCache parsedFileCache = new ParsedFileCache(DEFAULT_PARSED_FILE_CACHE_SIZE);
+	private static final int DEFAULT_PARSED_FILE_CACHE_SIZE = 1000;
+	private File parsedFileStoreDirectory;
+	private long parsedFileStoreSize = 0;
+	private final Map<File, ParsedFileStore> parsedFileStores = new HashMap<File, ParsedFileStore>();
+	private final RepositoryDirectoryIndex repositoryDirectoryIndex = new RepositoryDirectoryIndex(16);
+	private ForkJoinPool parsingPool;
+	private ExecutorService classDiffExecutor;
+	private int maximumOperationMoveCandidates = 0;
+	private boolean partialResultsOnTimeout = false;
+	//how long a detection that ran out of its timeout is given to skip its remaining phases and report its partial results
+	private static final long PARTIAL_RESULTS_GRACE_PERIOD_MILLIS = 1000;
+	private int maximumCommitFiles = 0;
+	private long maximumCommitSourceBytes = 0;
+	private long maximumCommitStatements = 0;
+	private double maximumCommitHeapUsage = 0;
 	
 	public GitHistoryRefactoringMinerImpl() {
 		this.setRefactoringTypesToConsider(RefactoringType.ALL);
@@ -79,8 +109,93 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			this.refactoringTypesToConsider.add(type);
 		}
 	}
-	
-	private void detect(GitService gitService, Repository repository, final RefactoringHandler handler, Iterator<RevCommit> i) {
+
+	//with more than one thread, commits are analyzed concurrently, but the handler is always invoked from the calling thread
+	public void setNumberOfThreads(int numberOfThreads) {
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	//when false, the results of concurrently analyzed commits reach the handler in completion order instead of history order
+	public void setCommitOrderPreserved(boolean commitOrderPreserved) {
+		this.commitOrderPreserved = commitOrderPreserved;
+	}
+
+	//a commit whose changed files exceed one of the limits is skipped and reported to the handler as an exception, before its models are built; 0 means no limit
+	public void setCommitSizeLimits(int maximumFiles, long maximumSourceBytes, long maximumStatements) {
+		this.maximumCommitFiles = maximumFiles;
+		this.maximumCommitSourceBytes = maximumSourceBytes;
+		this.maximumCommitStatements = maximumStatements;
+	}
+
+	//a commit is also skipped and reported to the handler as an exception, when the used heap exceeds the given fraction of the maximum heap while its models are built; 0 means no limit.
+	//the heap is that of the whole JVM, including the models of the other commits in flight, as used after its last collections
+	public void setCommitHeapUsageLimit(double maximumHeapUsage) {
+		this.maximumCommitHeapUsage = maximumHeapUsage;
+	}
+
+	//with more than one thread, the changed files of a commit are parsed concurrently
+	public void setNumberOfParsingThreads(int numberOfParsingThreads) {
+		if (parsingPool != null) {
+			parsingPool.shutdown();
+		}
+		this.parsingPool = numberOfParsingThreads > 1 ? new ForkJoinPool(numberOfParsingThreads) : null;
+	}
+
+	//with more than one thread, the common classes of a commit are diffed concurrently
+	public void setNumberOfClassDiffThreads(int numberOfClassDiffThreads) {
+		if (classDiffExecutor != null) {
+			classDiffExecutor.shutdown();
+		}
+		//shared by the commits in flight
+		this.classDiffExecutor = numberOfClassDiffThreads > 1 ? Executors.newFixedThreadPool(numberOfClassDiffThreads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "class-diff");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}) : null;
+	}
+
+	//the number of most similar operations given a body mapper when checking for moved operations, trading accuracy for speed, 0 compares all of them
+	public void setMaximumOperationMoveCandidates(int maximumOperationMoveCandidates) {
+		this.maximumOperationMoveCandidates = maximumOperationMoveCandidates;
+	}
+
+	//the number of parsed files kept for reuse in the next commits of a history walk, 0 disables the reuse
+	public void setParsedFileCacheSize(int parsedFileCacheSize) {
+		this.parsedFileCache = new ParsedFileCache(parsedFileCacheSize);
+	}
+
+	//keeps the parsed files on disk between runs, under a parsed-files directory in the given directory or in the .git/refactoringminer directory of each repository when null, 0 bytes disables the store
+	public void setParsedFileStore(File directory, long maxSizeInBytes) {
+		this.parsedFileStoreDirectory = directory;
+		this.parsedFileStoreSize = maxSizeInBytes;
+		synchronized (parsedFileStores) {
+			parsedFileStores.clear();
+		}
+	}
+
+	private ParsedFileStore getParsedFileStore(Repository repository) throws IOException {
+		if (parsedFileStoreSize <= 0) {
+			return null;
+		}
+		File directory = parsedFileStoreDirectory != null ? parsedFileStoreDirectory : new File(repository.getDirectory(), "refactoringminer");
+		synchronized (parsedFileStores) {
+			ParsedFileStore parsedFileStore = parsedFileStores.get(directory);
+			if (parsedFileStore == null) {
+				parsedFileStore = new ParsedFileStore(directory, parsedFileStoreSize);
+				parsedFileStores.put(directory, parsedFileStore);
+			}
+			return parsedFileStore;
+		}
+	}
+
+	private void detect(GitService gitService, Repository repository, final RefactoringHandler handler, Iterator<RevCommit> i) throws InterruptedException {
+		if (numberOfThreads > 1) {
+			detectInParallel(gitService, repository, handler, i);
+			return;
+		}
 		int commitsCount = 0;
 		int errorCommitsCount = 0;
 		int refactoringsCount = 0;
@@ -114,68 +229,283 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		logger.info(String.format("Analyzed %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, commitsCount, errorCommitsCount, refactoringsCount));
 	}
 
+	private void detectInParallel(GitService gitService, Repository repository, final RefactoringHandler handler, Iterator<RevCommit> i) throws InterruptedException {
+		int[] counts = new int[3];
+		File metadataFolder = repository.getDirectory();
+		File projectFolder = metadataFolder.getParentFile();
+		String projectName = projectFolder.getName();
+		
+		//bound the number of commits in flight, so that a long history walk is not consumed eagerly
+		int maxCommitsInFlight = 2 * numberOfThreads;
+		ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads);
+		ExecutorCompletionService<CommitResult> completionService = new ExecutorCompletionService<CommitResult>(pool);
+		Deque<Future<CommitResult>> commitsInFlight = new ArrayDeque<Future<CommitResult>>();
+		long time = System.currentTimeMillis();
+		try {
+			while (i.hasNext()) {
+				RevCommit currentCommit = i.next();
+				Callable<CommitResult> task = () -> {
+					String commitId = currentCommit.getId().getName();
+					ParsedFileCache.Checkout checkout = parsedFileCache.checkout();
+					try {
+						return new CommitResult(commitId, detectRefactorings(gitService, repository, projectFolder, currentCommit, checkout), null, checkout);
+					} catch (Exception e) {
+						return new CommitResult(commitId, null, e, checkout);
+					}
+				};
+				commitsInFlight.addLast(completionService.submit(task));
+				if (commitsInFlight.size() >= maxCommitsInFlight) {
+					handle(nextResult(commitsInFlight, completionService), handler, counts);
+				}
+				long time2 = System.currentTimeMillis();
+				if ((time2 - time) > 20000) {
+					time = time2;
+					logger.info(String.format("Processing %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, counts[1], counts[2], counts[0]));
+				}
+			}
+			while (!commitsInFlight.isEmpty()) {
+				handle(nextResult(commitsInFlight, completionService), handler, counts);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		handler.onFinish(counts[0], counts[1], counts[2]);
+		logger.info(String.format("Analyzed %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, counts[1], counts[2], counts[0]));
+	}
+
+	private CommitResult nextResult(Deque<Future<CommitResult>> commitsInFlight, ExecutorCompletionService<CommitResult> completionService) throws InterruptedException {
+		Future<CommitResult> future;
+		if (commitOrderPreserved) {
+			future = commitsInFlight.removeFirst();
+		}
+		else {
+			future = completionService.take();
+			commitsInFlight.remove(future);
+		}
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			//only errors escape the worker, since exceptions are reported through the CommitResult
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void handle(CommitResult result, RefactoringHandler handler, int[] counts) {
+		Exception error = result.error;
+		if (error == null) {
+			try {
+				handler.handle(result.commitId, result.refactorings);
+				counts[0] += result.refactorings.size();
+			} catch (Exception e) {
+				error = e;
+			}
+			finally {
+				//the refactorings refer to the file models, so the next commits reuse them only once the handler is done
+				result.checkout.release();
+			}
+		}
+		else {
+			result.checkout.release();
+		}
+		if (error != null) {
+			logger.warn(String.format("Ignored revision %s due to error", result.commitId), error);
+			handler.handleException(result.commitId, error);
+			counts[2]++;
+		}
+		counts[1]++;
+	}
+
+	private static class CommitResult {
+		private final String commitId;
+		private final List<Refactoring> refactorings;
+		private final Exception error;
+		private final ParsedFileCache.Checkout checkout;
+
+		private CommitResult(String commitId, List<Refactoring> refactorings, Exception error, ParsedFileCache.Checkout checkout) {
+			this.commitId = commitId;
+			this.refactorings = refactorings;
+			this.error = error;
+			this.checkout = checkout;
+		}
+	}
+
 	protected List<Refactoring> detectRefactorings(GitService gitService, Repository repository, final RefactoringHandler handler, File projectFolder, RevCommit currentCommit) throws Exception {
+		ParsedFileCache.Checkout checkout = parsedFileCache.checkout();
+		try {
+			List<Refactoring> refactoringsAtRevision = detectRefactorings(gitService, repository, projectFolder, currentCommit, checkout);
+			handlePartialResults(handler, currentCommit.getId().getName());
+			handler.handle(currentCommit.getId().getName(), refactoringsAtRevision);
+			return refactoringsAtRevision;
+		}
+		finally {
+			//the refactorings refer to the file models, so the next commits reuse them only once the handler is done
+			checkout.release();
+		}
+	}
+
+	private void handlePartialResults(RefactoringHandler handler, String commitId) {
+		CommitBudget budget = CommitBudget.current();
+		if (budget != null && !budget.getSkippedPhases().isEmpty()) {
+			logger.warn(String.format("Partial results for revision %s due to timeout, skipped %s", commitId, budget.getSkippedPhases()));
+			handler.handlePartialResults(commitId, budget.getSkippedPhases());
+		}
+	}
+
+	private List<Refactoring> detectRefactorings(GitService gitService, Repository repository, File projectFolder, RevCommit currentCommit, ParsedFileCache.Checkout checkout) throws Exception {
 		List<Refactoring> refactoringsAtRevision;
-		String commitId = currentCommit.getId().getName();
 		List<String> filePathsBefore = new ArrayList<String>();
 		List<String> filePathsCurrent = new ArrayList<String>();
 		Map<String, String> renamedFilesHint = new HashMap<String, String>();
 		gitService.fileTreeDiff(repository, currentCommit, filePathsBefore, filePathsCurrent, renamedFilesHint);
 		
-		Set<String> repositoryDirectoriesBefore = new LinkedHashSet<String>();
-		Set<String> repositoryDirectoriesCurrent = new LinkedHashSet<String>();
-		Map<String, String> fileContentsBefore = new LinkedHashMap<String, String>();
-		Map<String, String> fileContentsCurrent = new LinkedHashMap<String, String>();
-		try (RevWalk walk = new RevWalk(repository)) {
+		Map<String, ObjectId> fileBlobIdsBefore = new LinkedHashMap<String, ObjectId>();
+		Map<String, ObjectId> fileBlobIdsCurrent = new LinkedHashMap<String, ObjectId>();
+		Map<String, UMLModel> fileModelsBefore = new LinkedHashMap<String, UMLModel>();
+		Map<String, UMLModel> fileModelsCurrent = new LinkedHashMap<String, UMLModel>();
+		//each commit gets its own reader, since ObjectReader instances must not be shared between threads
+		try (ObjectReader reader = repository.newObjectReader()) {
 			// If no java files changed, there is no refactoring. Also, if there are
 			// only ADD's or only REMOVE's there is no refactoring
 			if (!filePathsBefore.isEmpty() && !filePathsCurrent.isEmpty() && currentCommit.getParentCount() > 0) {
 				RevCommit parentCommit = currentCommit.getParent(0);
-				populateFileContents(repository, parentCommit, filePathsBefore, fileContentsBefore, repositoryDirectoriesBefore);
-				UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
+				ParsedFileStore parsedFileStore = getParsedFileStore(repository);
+				//in a history walk, the tree of the current commit is already indexed as the parent tree of the previously analyzed commit
+				Set<String> repositoryDirectoriesCurrent = repositoryDirectoryIndex.getDirectories(reader, currentCommit.getTree(), parentCommit.getTree(), filePathsCurrent, filePathsBefore);
+				Set<String> repositoryDirectoriesBefore = repositoryDirectoryIndex.getDirectories(reader, parentCommit.getTree(), currentCommit.getTree(), filePathsBefore, filePathsCurrent);
+				populateFileBlobIds(repository, reader, parentCommit, filePathsBefore, fileBlobIdsBefore);
+				populateFileBlobIds(repository, reader, currentCommit, filePathsCurrent, fileBlobIdsCurrent);
+				CommitSizeAccount commitSize = new CommitSizeAccount(maximumCommitFiles, maximumCommitSourceBytes, maximumCommitStatements, maximumCommitHeapUsage);
+				commitSize.addFiles(reader, fileBlobIdsBefore.values());
+				commitSize.addFiles(reader, fileBlobIdsCurrent.values());
+				UMLModel parentUMLModel = createModel(reader, parsedFileStore, fileBlobIdsBefore, repositoryDirectoriesBefore, fileModelsBefore, commitSize);
 
-				populateFileContents(repository, currentCommit, filePathsCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
-				UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
+				UMLModel currentUMLModel = createModel(reader, parsedFileStore, fileBlobIdsCurrent, repositoryDirectoriesCurrent, fileModelsCurrent, commitSize);
 				
-				refactoringsAtRevision = parentUMLModel.diff(currentUMLModel, renamedFilesHint).getRefactorings();
+				UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint, classDiffExecutor);
+				modelDiff.setMaximumOperationMoveCandidates(maximumOperationMoveCandidates);
+				refactoringsAtRevision = modelDiff.getRefactorings();
+				if (modelDiff.getPrunedOperationPairs() > 0) {
+					logger.debug(String.format("Pruned %d operation pairs in revision %s", modelDiff.getPrunedOperationPairs(), currentCommit.getId().getName()));
+				}
 				refactoringsAtRevision = filter(refactoringsAtRevision);
 			} else {
 				//logger.info(String.format("Ignored revision %s with no changes in java files", commitId));
 				refactoringsAtRevision = Collections.emptyList();
 			}
-			handler.handle(commitId, refactoringsAtRevision);
-			
-			walk.dispose();
+		}
+		finally {
+			//the models of the files are reused by the next commits having the same file blobs, once the checkout is released
+			for (String filePath : fileModelsBefore.keySet()) {
+				checkout.add(filePath, fileBlobIdsBefore.get(filePath), fileModelsBefore.get(filePath));
+			}
+			for (String filePath : fileModelsCurrent.keySet()) {
+				checkout.add(filePath, fileBlobIdsCurrent.get(filePath), fileModelsCurrent.get(filePath));
+			}
 		}
 		return refactoringsAtRevision;
 	}
 
-	private void populateFileContents(Repository repository, RevCommit commit,
-			List<String> filePaths, Map<String, String> fileContents, Set<String> repositoryDirectories) throws Exception {
+	private UMLModel createModel(ObjectReader reader, ParsedFileStore parsedFileStore, Map<String, ObjectId> fileBlobIds, Set<String> repositoryDirectories, Map<String, UMLModel> fileModels, CommitSizeAccount commitSize) throws Exception {
+		List<ObjectId> blobIdsToLoad = new ArrayList<ObjectId>();
+		for (String filePath : fileBlobIds.keySet()) {
+			CommitBudget.check();
+			ObjectId blobId = fileBlobIds.get(filePath);
+			UMLModel fileModel = parsedFileCache.take(filePath, blobId);
+			if (fileModel == null && parsedFileStore != null) {
+				fileModel = parsedFileStore.load(filePath, blobId);
+			}
+			if (fileModel != null) {
+				fileModels.put(filePath, fileModel);
+			}
+			else {
+				blobIdsToLoad.add(blobId);
+			}
+		}
+		Map<ObjectId, String> blobContents = loadBlobContents(reader, blobIdsToLoad);
+		Map<String, UMLModel> parsedFileModels = null;
+		if (parsingPool != null) {
+			Map<String, String> fileContentsToParse = new LinkedHashMap<String, String>();
+			for (String filePath : fileBlobIds.keySet()) {
+				if (!fileModels.containsKey(filePath)) {
+					String fileContents = blobContents.get(fileBlobIds.get(filePath));
+					if (UMLModelASTReader.isGeneratedFile(fileContents)) {
+						//the files after a generated file are dropped below, so they are neither parsed nor accounted for
+						break;
+					}
+					fileContentsToParse.put(filePath, fileContents);
+				}
+			}
+			//the statements are accounted for by the parsing tasks, so that the files not yet parsed are skipped once a limit is exceeded
+			parsedFileModels = UMLModelASTReader.createFileModels(fileContentsToParse, parsingPool, commitSize::tryAddStatements);
+			//the parsing tasks skip the files not yet parsed, once the budget is exhausted
+			CommitBudget.check();
+			commitSize.checkLimits();
+		}
+		UMLModel umlModel = new UMLModel(repositoryDirectories);
+		for (String filePath : fileBlobIds.keySet()) {
+			CommitBudget.check();
+			ObjectId blobId = fileBlobIds.get(filePath);
+			UMLModel fileModel = fileModels.get(filePath);
+			if (fileModel == null) {
+				String fileContents = blobContents.get(blobId);
+				if (UMLModelASTReader.isGeneratedFile(fileContents)) {
+					//UMLModelASTReader stops processing the remaining files, when it finds a generated file
+					break;
+				}
+				if (parsedFileModels != null) {
+					fileModel = parsedFileModels.get(filePath);
+				}
+				else {
+					fileModel = createModel(Collections.singletonMap(filePath, fileContents), Collections.<String>emptySet());
+					commitSize.addStatements(fileModel);
+				}
+				if (parsedFileStore != null) {
+					parsedFileStore.store(filePath, blobId, fileModel);
+				}
+				fileModels.put(filePath, fileModel);
+			}
+			else {
+				commitSize.addStatements(fileModel);
+			}
+			umlModel.merge(fileModel);
+		}
+		return umlModel;
+	}
+
+	private Map<ObjectId, String> loadBlobContents(ObjectReader reader, List<ObjectId> blobIds) throws Exception {
+		Map<ObjectId, String> blobContents = new HashMap<ObjectId, String>();
+		if (blobIds.isEmpty()) {
+			return blobContents;
+		}
+		AsyncObjectLoaderQueue<ObjectId> queue = reader.open(blobIds, true);
+		try {
+			while (queue.next()) {
+				StringWriter writer = new StringWriter();
+				IOUtils.copy(queue.open().openStream(), writer);
+				blobContents.put(queue.getObjectId(), writer.toString());
+			}
+		}
+		finally {
+			queue.release();
+		}
+		return blobContents;
+	}
+
+	private void populateFileBlobIds(Repository repository, ObjectReader reader, RevCommit commit,
+			List<String> filePaths, Map<String, ObjectId> fileBlobIds) throws Exception {
 		logger.info("Processing {} {} ...", repository.getDirectory().getParent().toString(), commit.getName());
 		RevTree parentTree = commit.getTree();
-		try (TreeWalk treeWalk = new TreeWalk(repository)) {
+		try (TreeWalk treeWalk = new TreeWalk(reader)) {
 			treeWalk.addTree(parentTree);
 			treeWalk.setRecursive(true);
+			//only the subtrees leading to the changed files are visited
+			treeWalk.setFilter(PathFilterGroup.createFromStrings(filePaths));
 			while (treeWalk.next()) {
-				String pathString = treeWalk.getPathString();
-				if(filePaths.contains(pathString)) {
-					ObjectId objectId = treeWalk.getObjectId(0);
-					ObjectLoader loader = repository.open(objectId);
-					StringWriter writer = new StringWriter();
-					IOUtils.copy(loader.openStream(), writer);
-					fileContents.put(pathString, writer.toString());
-				}
-				if(pathString.endsWith(".java") && pathString.contains("/")) {
-					String directory = pathString.substring(0, pathString.lastIndexOf("/"));
-					repositoryDirectories.add(directory);
-					//include sub-directories
-					String subDirectory = new String(directory);
-					while(subDirectory.contains("/")) {
-						subDirectory = subDirectory.substring(0, subDirectory.lastIndexOf("/"));
-						repositoryDirectories.add(subDirectory);
-					}
-				}
+				fileBlobIds.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
 			}
 		}
 	}
@@ -209,6 +539,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			logger.warn(String.format("Ignored revision %s due to error", currentCommitId), e);
 			handler.handleException(currentCommitId, e);
 		}
+		handlePartialResults(handler, currentCommitId);
 		handler.handle(currentCommitId, refactoringsAtRevision);
 
 		return refactoringsAtRevision;
@@ -372,6 +703,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			this.detectRefactorings(handler, projectFolder, cloneURL, commitId);
 		} catch (RefactoringMinerTimedOutException e) {
 			logger.warn(String.format("Ignored revision %s due to timeout", commitId), e);
+			handler.handleException(commitId, e);
 		} catch (Exception e) {
 			logger.warn(String.format("Ignored revision %s due to error", commitId), e);
 			handler.handleException(commitId, e);
@@ -381,21 +713,113 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		}
 	}
 
+	//when true, a detection running out of its timeout reports the refactorings found so far along with the phases it skipped, instead of nothing.
+	//only the detections given a timeout have a budget, namely detectAtCommit and detectAtPullRequest with a timeout, the history walks are not affected
+	public void setPartialResultsOnTimeout(boolean partialResultsOnTimeout) {
+		this.partialResultsOnTimeout = partialResultsOnTimeout;
+	}
+
 	public void detectAtCommit(Repository repository, String commitId, RefactoringHandler handler, int timeout) {
-		ExecutorService service = Executors.newSingleThreadExecutor();
-		Future<?> f = null;
+		detectWithTimeout(commitId, handler, timedHandler -> detectAtCommit(repository, commitId, timedHandler), timeout);
+	}
+
+	//the detection runs on its own thread with a budget for the timeout, which its expensive loops check, so that it stops soon after the timeout.
+	//a detection stuck where the budget is not checked, such as in I/O, only keeps its own thread busy.
+	//when the detection is abandoned without having reported anything, the timeout is reported to the handler
+	private void detectWithTimeout(String commitId, RefactoringHandler handler, Consumer<RefactoringHandler> detection, int timeout) {
+		TimedDetectionHandler timedHandler = new TimedDetectionHandler(handler);
+		CommitBudget budget = new CommitBudget(timeout, TimeUnit.SECONDS, partialResultsOnTimeout);
+		FutureTask<Void> f = new FutureTask<Void>(() -> {
+			CommitBudget previousBudget = CommitBudget.bind(budget);
+			try {
+				detection.accept(timedHandler);
+			} finally {
+				CommitBudget.bind(previousBudget);
+			}
+		}, null);
+		Thread thread = new Thread(f, "timed-detection");
+		thread.setDaemon(true);
+		thread.start();
 		try {
-			Runnable r = () -> detectAtCommit(repository, commitId, handler);
-			f = service.submit(r);
-			f.get(timeout, TimeUnit.SECONDS);
+			try {
+				f.get(timeout, TimeUnit.SECONDS);
+			} catch (TimeoutException e) {
+				if (!partialResultsOnTimeout) {
+					throw e;
+				}
+				//the detection skips its remaining phases and reports the refactorings found so far, unless it is stuck in a phase not checking the budget
+				budget.cancel();
+				f.get(PARTIAL_RESULTS_GRACE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+			}
 		} catch (TimeoutException e) {
+			budget.cancel();
 			f.cancel(true);
+			if (timedHandler.abandon()) {
+				logger.warn(String.format("Ignored revision %s due to timeout", commitId));
+				try {
+					handler.handleException(commitId, new RefactoringMinerTimedOutException());
+				} catch (RuntimeException handlerException) {
+					//as for the exceptions thrown by the handler on the thread of the detection
+					handlerException.printStackTrace();
+				}
+			}
 		} catch (ExecutionException e) {
 			e.printStackTrace();
 		} catch (InterruptedException e) {
+			budget.cancel();
+			f.cancel(true);
+			timedHandler.abandon();
 			e.printStackTrace();
-		} finally {
-			service.shutdown();
+		}
+	}
+
+	//passes the results of a timed detection to the handler, until the detection is abandoned after its timeout
+	private static class TimedDetectionHandler extends RefactoringHandler {
+		private final RefactoringHandler handler;
+		private boolean reported;
+		private boolean abandoned;
+
+		private TimedDetectionHandler(RefactoringHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public boolean skipCommit(String commitId) {
+			return handler.skipCommit(commitId);
+		}
+
+		@Override
+		public synchronized void handle(String commitId, List<Refactoring> refactorings) {
+			if (!abandoned) {
+				reported = true;
+				handler.handle(commitId, refactorings);
+			}
+		}
+
+		@Override
+		public synchronized void handlePartialResults(String commitId, Set<DetectionPhase> skippedPhases) {
+			if (!abandoned) {
+				handler.handlePartialResults(commitId, skippedPhases);
+			}
+		}
+
+		@Override
+		public synchronized void handleException(String commitId, Exception e) {
+			if (!abandoned) {
+				reported = true;
+				handler.handleException(commitId, e);
+			}
+		}
+
+		@Override
+		public void onFinish(int refactoringsCount, int commitsCount, int errorCommitsCount) {
+			handler.onFinish(refactoringsCount, commitsCount, errorCommitsCount);
+		}
+
+		//returns true if the detection has not reported its commit, so that the timeout is reported instead
+		private synchronized boolean abandon() {
+			abandoned = true;
+			return !reported;
 		}
 	}
 
@@ -459,21 +883,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 
 	@Override
 	public void detectAtCommit(String gitURL, String commitId, RefactoringHandler handler, int timeout) {
-		ExecutorService service = Executors.newSingleThreadExecutor();
-		Future<?> f = null;
-		try {
-			Runnable r = () -> detectRefactorings(handler, gitURL, commitId);
-			f = service.submit(r);
-			f.get(timeout, TimeUnit.SECONDS);
-		} catch (TimeoutException e) {
-			f.cancel(true);
-		} catch (ExecutionException e) {
-			e.printStackTrace();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		} finally {
-			service.shutdown();
-		}
+		detectWithTimeout(commitId, handler, timedHandler -> detectRefactorings(timedHandler, gitURL, commitId), timeout);
 	}
 
 	protected List<Refactoring> detectRefactorings(final RefactoringHandler handler, String gitURL, String currentCommitId) {
@@ -486,7 +896,9 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			Map<String, String> renamedFilesHint = new ConcurrentHashMap<String, String>();
 			populateWithGitHubAPI(gitURL, currentCommitId, fileContentsBefore, fileContentsCurrent, renamedFilesHint, repositoryDirectoriesBefore, repositoryDirectoriesCurrent);
 			UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
+			CommitBudget.check();
 			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
+			CommitBudget.check();
 			//  Diff between currentModel e parentModel
 			refactoringsAtRevision = parentUMLModel.diff(currentUMLModel, renamedFilesHint).getRefactorings();
 			refactoringsAtRevision = filter(refactoringsAtRevision);
@@ -499,6 +911,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			logger.warn(String.format("Ignored revision %s due to error", currentCommitId), e);
 			handler.handleException(currentCommitId, e);
 		}
+		handlePartialResults(handler, currentCommitId);
 		handler.handle(currentCommitId, refactoringsAtRevision);
 
 		return refactoringsAtRevision;
@@ -0,0 +1,105 @@
+package org.refactoringminer.rm1;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import gr.uom.java.xmi.UMLAnonymousClass;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLOperation;
+
+/**
+ * Keeps the models of recently parsed files, so that a file with the same path and git blob
+ * is not parsed again when it appears in the next commit of a history walk.
+ */
+class ParsedFileCache {
+	private final int capacity;
+	private final Map<String, UMLModel> fileModels;
+
+	ParsedFileCache(int capacity) {
+		this.capacity = capacity;
+		this.fileModels = new LinkedHashMap<String, UMLModel>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, UMLModel> eldest) {
+				return size() > ParsedFileCache.this.capacity;
+			}
+		};
+	}
+
+	//the model leaves the cache while in use, because diffing updates the argumentized strings of its statements
+	UMLModel take(String filePath, ObjectId blobId) {
+		UMLModel fileModel;
+		synchronized(fileModels) {
+			fileModel = fileModels.remove(key(filePath, blobId));
+		}
+		if(fileModel != null) {
+			for(UMLClass umlClass : fileModel.getClassList()) {
+				clearArgumentization(umlClass);
+			}
+		}
+		return fileModel;
+	}
+
+	void put(String filePath, ObjectId blobId, UMLModel fileModel) {
+		if(capacity > 0) {
+			synchronized(fileModels) {
+				fileModels.put(key(filePath, blobId), fileModel);
+			}
+		}
+	}
+
+	Checkout checkout() {
+		return new Checkout();
+	}
+
+	/**
+	 * The models of the files used by a commit, which go back into the cache together, once the
+	 * refactorings referring to them have been handled.
+	 */
+	class Checkout {
+		private final List<String> filePaths = new ArrayList<String>();
+		private final List<ObjectId> blobIds = new ArrayList<ObjectId>();
+		private final List<UMLModel> fileModels = new ArrayList<UMLModel>();
+
+		void add(String filePath, ObjectId blobId, UMLModel fileModel) {
+			filePaths.add(filePath);
+			blobIds.add(blobId);
+			fileModels.add(fileModel);
+		}
+
+		void release() {
+			for(int i = 0; i < filePaths.size(); i++) {
+				put(filePaths.get(i), blobIds.get(i), fileModels.get(i));
+			}
+			filePaths.clear();
+			blobIds.clear();
+			fileModels.clear();
+		}
+	}
+
+	private static String key(String filePath, ObjectId blobId) {
+		//the path is part of the key, since the model of a file refers to its path
+		return blobId.getName() + ":" + filePath;
+	}
+
+	private static void clearArgumentization(UMLClass umlClass) {
+		for(UMLOperation operation : umlClass.getOperations()) {
+			clearArgumentization(operation);
+		}
+		for(UMLAnonymousClass anonymousClass : umlClass.getAnonymousClassList()) {
+			for(UMLOperation operation : anonymousClass.getOperations()) {
+				clearArgumentization(operation);
+			}
+		}
+	}
+
+	private static void clearArgumentization(UMLOperation operation) {
+		if(operation.getBody() != null) {
+			operation.getBody().getCompositeStatement().clearArgumentization();
+		}
+	}
+}
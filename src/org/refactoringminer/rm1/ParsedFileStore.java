@@ -0,0 +1,242 @@
+package org.refactoringminer.rm1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gr.uom.java.xmi.UMLModel;
+
+/**
+ * Stores the models of parsed files on disk, so that they survive between mining runs.
+ * The entries are grouped under a version stamp computed from the code of the parser and model classes,
+ * and the least recently used entries are evicted when the store exceeds its maximum size.
+ * The directories of the other versions are deleted once they have not been used for a week,
+ * since a store of another build may still be in use by another process.
+ */
+class ParsedFileStore {
+	private static final Logger logger = LoggerFactory.getLogger(ParsedFileStore.class);
+	//changed when the way the models are stored changes, independently of the code that builds them
+	private static final int FORMAT_VERSION = 1;
+	//the child of the given directory holding the version directories, so that the store deletes only the directories it created
+	private static final String STORE_DIRECTORY_NAME = "parsed-files";
+	//the version directories not used for that long are deleted
+	private static final long UNUSED_VERSION_AGE = TimeUnit.DAYS.toMillis(7);
+	//the last modification time of the version directory records its last use, and is updated at most that often
+	private static final long USE_RECORDING_INTERVAL = TimeUnit.HOURS.toMillis(1);
+	private static volatile String versionStamp;
+	private final File directory;
+	private final long maxSize;
+	private long size;
+	private volatile long lastUseRecorded;
+
+	ParsedFileStore(File parentDirectory, long maxSize) throws IOException {
+		File storeDirectory = new File(parentDirectory, STORE_DIRECTORY_NAME);
+		this.directory = new File(storeDirectory, versionStamp());
+		this.maxSize = maxSize;
+		FileUtils.mkdirs(directory, true);
+		recordUse();
+		File[] versionDirectories = storeDirectory.listFiles();
+		if(versionDirectories != null) {
+			long now = System.currentTimeMillis();
+			for(File versionDirectory : versionDirectories) {
+				if(!versionDirectory.equals(directory) && ObjectId.isId(versionDirectory.getName()) &&
+						now - versionDirectory.lastModified() > UNUSED_VERSION_AGE) {
+					FileUtils.delete(versionDirectory, FileUtils.RECURSIVE | FileUtils.IGNORE_ERRORS);
+				}
+			}
+		}
+		for(File file : storedFiles()) {
+			size += file.length();
+		}
+	}
+
+	private void recordUse() {
+		long now = System.currentTimeMillis();
+		if(now - lastUseRecorded > USE_RECORDING_INTERVAL) {
+			lastUseRecorded = now;
+			directory.setLastModified(now);
+		}
+	}
+
+	UMLModel load(String filePath, ObjectId blobId) {
+		File file = file(filePath, blobId);
+		if(!file.isFile()) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+			UMLModel fileModel = (UMLModel) in.readObject();
+			file.setLastModified(System.currentTimeMillis());
+			recordUse();
+			return fileModel;
+		}
+		//a corrupt or very deep stored graph may fail in any way while it is read, and the file is then parsed again
+		catch(Exception | StackOverflowError e) {
+			logger.warn(String.format("Ignored unreadable parsed file %s", file), e);
+			delete(file);
+			return null;
+		}
+	}
+
+	void store(String filePath, ObjectId blobId, UMLModel fileModel) {
+		File file = file(filePath, blobId);
+		File tempFile = null;
+		try {
+			FileUtils.mkdirs(file.getParentFile(), true);
+			tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+			try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))) {
+				out.writeObject(fileModel);
+			}
+			long length = tempFile.length();
+			synchronized(this) {
+				//a file stored for the same blob by a concurrent commit is replaced, and its length is no longer part of the size
+				long replacedLength = file.length();
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				size += length - replacedLength;
+				if(size > maxSize) {
+					evict();
+				}
+			}
+			recordUse();
+		}
+		catch(IOException | StackOverflowError e) {
+			logger.warn(String.format("Could not store parsed file %s", file), e);
+			if(tempFile != null) {
+				delete(tempFile);
+			}
+		}
+	}
+
+	private void evict() {
+		List<File> files = storedFiles();
+		Collections.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File file1, File file2) {
+				return Long.compare(file1.lastModified(), file2.lastModified());
+			}
+		});
+		size = 0;
+		for(File file : files) {
+			size += file.length();
+		}
+		//evicts down to three quarters of the maximum size, so that the files are not listed on every store
+		for(int i = 0; i < files.size() && size > maxSize / 4 * 3; i++) {
+			File file = files.get(i);
+			long length = file.length();
+			if(delete(file)) {
+				size -= length;
+			}
+		}
+	}
+
+	private List<File> storedFiles() {
+		List<File> files = new ArrayList<File>();
+		File[] subdirectories = directory.listFiles();
+		if(subdirectories != null) {
+			for(File subdirectory : subdirectories) {
+				File[] subdirectoryFiles = subdirectory.listFiles();
+				if(subdirectoryFiles != null) {
+					for(File file : subdirectoryFiles) {
+						if(!file.getName().endsWith(".tmp")) {
+							files.add(file);
+						}
+					}
+				}
+			}
+		}
+		return files;
+	}
+
+	private File file(String filePath, ObjectId blobId) {
+		//the path is part of the name, since the model of a file refers to its path
+		String pathId = ObjectId.fromRaw(Constants.newMessageDigest().digest(filePath.getBytes(StandardCharsets.UTF_8))).getName();
+		String blobName = blobId.getName();
+		return new File(new File(directory, blobName.substring(0, 2)), blobName.substring(2) + "-" + pathId);
+	}
+
+	private static boolean delete(File file) {
+		try {
+			FileUtils.delete(file, FileUtils.SKIP_MISSING);
+			return true;
+		}
+		catch(IOException e) {
+			return false;
+		}
+	}
+
+	//the stamp covers all the classes of the code source holding the model classes, that is the jar of a release or the class directory of a build,
+	//so that a change to any class that may end up in a stored model, or to the code building the models, invalidates the stored files
+	private static String versionStamp() throws IOException {
+		if(versionStamp == null) {
+			MessageDigest digest = Constants.newMessageDigest();
+			digest.update(String.valueOf(FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+			digest.update(String.valueOf(ASTParser.class.getPackage().getImplementationVersion()).getBytes(StandardCharsets.UTF_8));
+			CodeSource codeSource = UMLModel.class.getProtectionDomain().getCodeSource();
+			if(codeSource == null || codeSource.getLocation() == null) {
+				throw new IOException("Unknown location of the model classes");
+			}
+			Path location;
+			try {
+				location = Paths.get(codeSource.getLocation().toURI());
+			}
+			catch(URISyntaxException | IllegalArgumentException e) {
+				throw new IOException("Unknown location of the model classes", e);
+			}
+			if(Files.isDirectory(location)) {
+				List<Path> classFiles = new ArrayList<Path>();
+				try (Stream<Path> files = Files.walk(location)) {
+					files.filter(file -> file.toString().endsWith(".class")).forEach(classFiles::add);
+				}
+				//sorted, so that the stamp does not depend on the order the files are listed in
+				Collections.sort(classFiles);
+				for(Path classFile : classFiles) {
+					digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+					update(digest, classFile);
+				}
+			}
+			else {
+				update(digest, location);
+			}
+			versionStamp = ObjectId.fromRaw(digest.digest()).getName();
+		}
+		return versionStamp;
+	}
+
+	private static void update(MessageDigest digest, Path file) throws IOException {
+		byte[] buffer = new byte[8192];
+		try (InputStream in = Files.newInputStream(file)) {
+			int length;
+			while((length = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, length);
+			}
+		}
+	}
+}
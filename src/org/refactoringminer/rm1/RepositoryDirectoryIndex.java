@@ -0,0 +1,98 @@
+package org.refactoringminer.rm1;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+
+/**
+ * Keeps the directories containing java files of recently analyzed trees, along with the number of java files under each directory.
+ * The directories of a tree are derived from those of an already indexed tree by applying the java files changed between the two trees,
+ * so that a history walk scans a single full tree.
+ */
+class RepositoryDirectoryIndex {
+	private final int capacity;
+	private final Map<ObjectId, Map<String, Integer>> treeDirectories;
+
+	RepositoryDirectoryIndex(int capacity) {
+		this.capacity = capacity;
+		this.treeDirectories = new LinkedHashMap<ObjectId, Map<String, Integer>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ObjectId, Map<String, Integer>> eldest) {
+				return size() > RepositoryDirectoryIndex.this.capacity;
+			}
+		};
+	}
+
+	//javaFiles and otherJavaFiles are the java files changed between the two trees, as they appear in each tree
+	Set<String> getDirectories(ObjectReader reader, ObjectId treeId, ObjectId otherTreeId, Collection<String> javaFiles, Collection<String> otherJavaFiles) throws IOException {
+		Map<String, Integer> directories;
+		Map<String, Integer> otherDirectories;
+		synchronized(treeDirectories) {
+			directories = treeDirectories.get(treeId);
+			otherDirectories = treeDirectories.get(otherTreeId);
+		}
+		if(directories == null) {
+			if(otherDirectories != null) {
+				directories = new HashMap<String, Integer>(otherDirectories);
+				Set<String> addedJavaFiles = new HashSet<String>(javaFiles);
+				addedJavaFiles.removeAll(otherJavaFiles);
+				Set<String> removedJavaFiles = new HashSet<String>(otherJavaFiles);
+				removedJavaFiles.removeAll(javaFiles);
+				for(String addedJavaFile : addedJavaFiles) {
+					update(directories, addedJavaFile, 1);
+				}
+				for(String removedJavaFile : removedJavaFiles) {
+					update(directories, removedJavaFile, -1);
+				}
+			}
+			else {
+				directories = scanDirectories(reader, treeId);
+			}
+			synchronized(treeDirectories) {
+				treeDirectories.put(treeId.copy(), directories);
+			}
+		}
+		//the indexed directories are never modified, since derived trees work on a copy
+		return Collections.unmodifiableSet(directories.keySet());
+	}
+
+	private static Map<String, Integer> scanDirectories(ObjectReader reader, ObjectId treeId) throws IOException {
+		Map<String, Integer> directories = new HashMap<String, Integer>();
+		try (TreeWalk treeWalk = new TreeWalk(reader)) {
+			treeWalk.addTree(treeId);
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(PathSuffixFilter.create(".java"));
+			while (treeWalk.next()) {
+				update(directories, treeWalk.getPathString(), 1);
+			}
+		}
+		return directories;
+	}
+
+	private static void update(Map<String, Integer> directories, String javaFile, int delta) {
+		int separatorIndex = javaFile.lastIndexOf('/');
+		//include sub-directories
+		while(separatorIndex != -1) {
+			String directory = javaFile.substring(0, separatorIndex);
+			Integer count = directories.get(directory);
+			int newCount = (count != null ? count : 0) + delta;
+			if(newCount > 0) {
+				directories.put(directory, newCount);
+			}
+			else {
+				directories.remove(directory);
+			}
+			separatorIndex = directory.lastIndexOf('/');
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package org.refactoringminer.util;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.refactoringminer.api.DetectionPhase;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+
+/**
+ * Limits the time spent on the detection of the refactorings of a commit.
+ * The budget is bound to the threads working on the commit, and the expensive loops of the detection check it cooperatively,
+ * so that a commit running out of time stops at the next check instead of keeping its threads busy.
+ */
+public class CommitBudget {
+	private static final ThreadLocal<CommitBudget> boundBudget = new ThreadLocal<CommitBudget>();
+	private final long deadline;
+	private final boolean partialResultsAllowed;
+	private final Set<DetectionPhase> skippedPhases = EnumSet.noneOf(DetectionPhase.class);
+	private volatile boolean cancelled;
+
+	public CommitBudget(long timeout, TimeUnit unit) {
+		this(timeout, unit, false);
+	}
+
+	//with partial results allowed, the detection skips its remaining phases when the budget runs out, instead of failing with a timeout
+	public CommitBudget(long timeout, TimeUnit unit, boolean partialResultsAllowed) {
+		this.deadline = System.nanoTime() + unit.toNanos(timeout);
+		this.partialResultsAllowed = partialResultsAllowed;
+	}
+
+	public boolean isPartialResultsAllowed() {
+		return partialResultsAllowed;
+	}
+
+	public synchronized void reportSkippedPhase(DetectionPhase phase) {
+		skippedPhases.add(phase);
+	}
+
+	public synchronized Set<DetectionPhase> getSkippedPhases() {
+		return Collections.unmodifiableSet(EnumSet.copyOf(skippedPhases));
+	}
+
+	public boolean isExhausted() {
+		return cancelled || System.nanoTime() - deadline >= 0;
+	}
+
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	//returns the budget bound to the current thread, or null if the current thread works without a budget
+	public static CommitBudget current() {
+		return boundBudget.get();
+	}
+
+	//binds the given budget to the current thread and returns the previously bound one, so that the caller can restore it
+	public static CommitBudget bind(CommitBudget budget) {
+		CommitBudget previous = boundBudget.get();
+		if(budget != null) {
+			boundBudget.set(budget);
+		}
+		else {
+			boundBudget.remove();
+		}
+		return previous;
+	}
+
+	public static void check() throws RefactoringMinerTimedOutException {
+		if(Thread.interrupted()) {
+			throw new RefactoringMinerTimedOutException();
+		}
+		CommitBudget budget = boundBudget.get();
+		if(budget != null && budget.isExhausted()) {
+			throw new RefactoringMinerTimedOutException();
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package org.refactoringminer.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+
+import gr.uom.java.xmi.diff.CodeRange;
+
+/**
+ * Writes commits, refactorings and code ranges as JSON directly to a writer, escaping the strings as they are written,
+ * so that no intermediate string is created for each serialized element.
+ * The indented layout is the one of Refactoring.toJSON(), while the compact layout writes each element in a single line.
+ */
+public class RefactoringJSONWriter {
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	private final Writer writer;
+	private final boolean indented;
+	private boolean involvedClassesIncluded;
+	//the commits written since startCommits, or -1 if the commits are written on their own
+	private int commitCount = -1;
+
+	public RefactoringJSONWriter(Writer writer) {
+		this(writer, true);
+	}
+
+	public RefactoringJSONWriter(Writer writer, boolean indented) {
+		this.writer = writer;
+		this.indented = indented;
+	}
+
+	//the caller has to flush() the writer, which buffers the bytes written to the stream
+	public RefactoringJSONWriter(OutputStream stream, boolean indented) {
+		this(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)), indented);
+	}
+
+	//with the involved classes included, each refactoring also has the classes returned by getInvolvedClassesBeforeRefactoring/AfterRefactoring
+	public RefactoringJSONWriter setInvolvedClassesIncluded(boolean involvedClassesIncluded) {
+		this.involvedClassesIncluded = involvedClassesIncluded;
+		return this;
+	}
+
+	//starts a document with an array of commits, to which writeCommit adds the commits separated by commas
+	public void startCommits() throws IOException {
+		writer.write("{");
+		newLine();
+		writer.write("\"commits\": [");
+		newLine();
+		commitCount = 0;
+	}
+
+	public void endCommits() throws IOException {
+		commitCount = -1;
+		writer.write("]");
+		newLine();
+		writer.write("}");
+	}
+
+	public void writeCommit(String cloneURL, String commitId, List<Refactoring> refactorings) throws IOException {
+		if(commitCount > 0) {
+			writer.write(",");
+			newLine();
+		}
+		writer.write("{");
+		newLine();
+		writeStringProperty(1, "repository", cloneURL);
+		writer.write(",");
+		newLine();
+		writeStringProperty(1, "sha1", commitId);
+		writer.write(",");
+		newLine();
+		writeStringProperty(1, "url", GitHistoryRefactoringMinerImpl.extractCommitURL(cloneURL, commitId));
+		writer.write(",");
+		newLine();
+		writePropertyName(1, "refactorings");
+		writer.write("[");
+		int counter = 0;
+		for(Refactoring refactoring : refactorings) {
+			writeRefactoring(refactoring);
+			if(counter < refactorings.size()-1) {
+				writer.write(",");
+			}
+			newLine();
+			counter++;
+		}
+		writer.write("]");
+		newLine();
+		writer.write("}");
+		if(commitCount >= 0) {
+			commitCount++;
+		}
+	}
+
+	public void writeRefactoring(Refactoring refactoring) throws IOException {
+		writer.write("{");
+		newLine();
+		writeStringProperty(1, "type", refactoring.getName());
+		writer.write(",");
+		newLine();
+		writeStringProperty(1, "description", refactoring.toString().replace('\t', ' '));
+		writer.write(",");
+		newLine();
+		writePropertyName(1, "leftSideLocations");
+		writeCodeRanges(refactoring.leftSide());
+		writer.write(",");
+		newLine();
+		writePropertyName(1, "rightSideLocations");
+		writeCodeRanges(refactoring.rightSide());
+		if(involvedClassesIncluded) {
+			writer.write(",");
+			newLine();
+			writePropertyName(1, "involvedClassesBefore");
+			writeInvolvedClasses(refactoring.getInvolvedClassesBeforeRefactoring());
+			writer.write(",");
+			newLine();
+			writePropertyName(1, "involvedClassesAfter");
+			writeInvolvedClasses(refactoring.getInvolvedClassesAfterRefactoring());
+		}
+		newLine();
+		writer.write("}");
+	}
+
+	//the layout of List.toString(), with the ranges separated by a comma and a space
+	public void writeCodeRanges(List<CodeRange> codeRanges) throws IOException {
+		writer.write("[");
+		int counter = 0;
+		for(CodeRange codeRange : codeRanges) {
+			if(counter > 0) {
+				writer.write(", ");
+			}
+			writeCodeRange(codeRange);
+			counter++;
+		}
+		writer.write("]");
+	}
+
+	public void writeCodeRange(CodeRange codeRange) throws IOException {
+		writer.write("{");
+		newLine();
+		writeStringProperty(2, "filePath", codeRange.getFilePath());
+		writer.write(",");
+		newLine();
+		writeIntProperty(2, "startLine", codeRange.getStartLine());
+		writer.write(",");
+		newLine();
+		writeIntProperty(2, "endLine", codeRange.getEndLine());
+		writer.write(",");
+		newLine();
+		writeIntProperty(2, "startColumn", codeRange.getStartColumn());
+		writer.write(",");
+		newLine();
+		writeIntProperty(2, "endColumn", codeRange.getEndColumn());
+		writer.write(",");
+		newLine();
+		writeStringProperty(2, "codeElementType", codeRange.getCodeElementType().name());
+		writer.write(",");
+		newLine();
+		writeStringProperty(2, "description", codeRange.getDescription());
+		writer.write(",");
+		newLine();
+		writeStringProperty(2, "codeElement", codeRange.getCodeElement());
+		newLine();
+		writer.write("}");
+	}
+
+	//the left of each pair is the file path, and the right is the qualified name of the class
+	public void writeInvolvedClasses(Set<ImmutablePair<String, String>> involvedClasses) throws IOException {
+		writer.write("[");
+		int counter = 0;
+		for(ImmutablePair<String, String> involvedClass : involvedClasses) {
+			if(counter > 0) {
+				writer.write(", ");
+			}
+			writer.write("{");
+			writeStringProperty(0, "filePath", involvedClass.getLeft());
+			writer.write(", ");
+			writeStringProperty(0, "className", involvedClass.getRight());
+			writer.write("}");
+			counter++;
+		}
+		writer.write("]");
+	}
+
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	private void writeStringProperty(int indentation, String propertyName, String value) throws IOException {
+		writePropertyName(indentation, propertyName);
+		writeString(value);
+	}
+
+	private void writeIntProperty(int indentation, String propertyName, int value) throws IOException {
+		writePropertyName(indentation, propertyName);
+		writer.write(Integer.toString(value));
+	}
+
+	private void writePropertyName(int indentation, String propertyName) throws IOException {
+		if(indented) {
+			for(int i = 0; i < indentation; i++) {
+				writer.write('\t');
+			}
+		}
+		writeString(propertyName);
+		writer.write(": ");
+	}
+
+	private void newLine() throws IOException {
+		if(indented) {
+			writer.write('\n');
+		}
+	}
+
+	//escapes the quotes, the backslashes and the control characters, and writes the characters between them in a single call
+	private void writeString(String value) throws IOException {
+		if(value == null) {
+			writer.write("null");
+			return;
+		}
+		writer.write('"');
+		int start = 0;
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if(c == '"' || c == '\\' || c < 0x20) {
+				writer.write(value, start, i - start);
+				writeEscaped(c);
+				start = i + 1;
+			}
+		}
+		writer.write(value, start, value.length() - start);
+		writer.write('"');
+	}
+
+	private void writeEscaped(char c) throws IOException {
+		switch(c) {
+		case '"':
+			writer.write("\\\"");
+			break;
+		case '\\':
+			writer.write("\\\\");
+			break;
+		case '\b':
+			writer.write("\\b");
+			break;
+		case '\f':
+			writer.write("\\f");
+			break;
+		case '\n':
+			writer.write("\\n");
+			break;
+		case '\r':
+			writer.write("\\r");
+			break;
+		case '\t':
+			writer.write("\\t");
+			break;
+		default:
+			writer.write("\\u00");
+			writer.write(HEX_DIGITS[c >> 4]);
+			writer.write(HEX_DIGITS[c & 0xF]);
+		}
+	}
+}